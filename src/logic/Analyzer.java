@@ -1,23 +1,24 @@
 package logic;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.json.JSONException;
-
 import logic.FileMetrics.CSV_Mode;
+import logic.MetricsTable.Metric;
 
 public class Analyzer {
 	public static final String DISK = "E:\\";
@@ -30,330 +31,366 @@ public class Analyzer {
 	public static final String SOURCES_PATH = PROJECT_PATH + ML_PATH;
 	public static final String JAVA_EXTENSION = ".java";
 	public static final String MASTER = "master";
+	public static final boolean CHECKOUT_FREE = true; //read files and sizes from git objects instead of checking out every release
+	public static final int WORKER_THREADS = Runtime.getRuntime().availableProcessors(); //release analysis and evaluation cells run on the same workers
+	public static final boolean SAVE_ML_DATASETS = true; //also write the Training/Test csv and arff files, the analysis reads them from memory
+	public static final boolean VERIFY_SMOTE = false; //also run SMOTE with the brute force neighbour search on every training set, the walk-forward stops if they differ
+	public static final boolean INCREMENTAL_TRAINING = true; //NaiveBayes and IBk learn only the new release at every walk-forward step
+	public static final String JIRA_URL = JiraClient.JIRA_API; //or a file: directory of saved responses standing in for jira
+	public static final boolean JIRA_OFFLINE = false; //replay versions and bugs from the issue store without contacting jira
+	public static final String ISSUE_STORE = "Issues.store";
+	public static final String METRICS_CACHE = "BlobMetrics.cache";
+	public static final String PREDICTION_STORE = "Predictions.store";
+	public static final String CHECKPOINTS = "Checkpoints"; //per release metrics and the metrics of the whole project, for the stages after a crash
+	public static final String METRICS_CHECKPOINT = "Metrics";
+	public static final String DATASETS_STAMP = "Datasets.stamp";
+	public static final String MODEL_STORE = "Models"; //trained classifiers and filters, reused while their training data does not change
+	public static final int METRICS_CACHE_SIZE = 500000; //max number of blobs kept in the metrics cache
 	public static final String CMD = "cmd.exe";
 	public static final String ERROR = "Error analyzing project";
 	
 	public static final double DISCARD_RATE = 0.49;
+	public static final int NOT_A_NUMBER = -1; //digit runs not fitting an int
+	
+	public static final Logger logger = Logger.getLogger(Analyzer.class.getName());
 	
-	protected static List<Release> releases;
-	protected static List<Ticket> tickets;
-	protected static List<FileMetrics> fileMetrics;
+	//the state of one project, analyzers of different projects can run at the same time
+	private final ProjectDescriptor project;
+	private final ExecutorService executor;
+	private final JiraClient jiraClient;
+	private final MetricsCache metricsCache;
 	
-	protected static List<String> releaseCommits;
+	protected List<Release> releases;
+	protected ReleaseTimeline releaseTimeline;
+	protected List<Ticket> tickets;
+	protected TicketRegistry ticketRegistry;
+	protected MetricsTable fileMetrics;
 	
-	public static final Logger logger = Logger.getLogger(Analyzer.class.getName());
+	protected int versionsToAnalyze;
+	protected List<String> releaseCommits;
+	protected CheckpointStore checkpointStore;
+	
+	public Analyzer(ProjectDescriptor project, ExecutorService executor, JiraClient jiraClient, MetricsCache metricsCache) {
+		//executor, jira client and metrics cache can be shared with the analyzers of other projects
+		this.project = project;
+		this.executor = executor;
+		this.jiraClient = jiraClient;
+		this.metricsCache = metricsCache;
+	}
 	
 	public static void main(String[] args) {
+		ProjectDescriptor project = new ProjectDescriptor(PROJECT_NAME, PROJECT_PATH, SAVE_PATH);
+		JiraClient jiraClient = JIRA_OFFLINE ? null : new JiraClient(JIRA_URL, JiraClient.MAX_PARALLEL_PAGES);
+		MetricsCache metricsCache = new MetricsCache(project.getStorePath(METRICS_CACHE), METRICS_CACHE_SIZE);
+		metricsCache.load();
 		
-		Integer totalVersions = 0;
-		Integer versionsToAnalyze = 0;
-		
+		ExecutorService executor = Executors.newFixedThreadPool(WORKER_THREADS);
 		try {
-			Analyzer.switchVersion(MASTER);
-			
-			releases = Release.getAllReleases(PROJECT_NAME);
-			tickets = Ticket.getFixedBugTickets(PROJECT_NAME, releases);
-			Ticket.setProportional(tickets); //after generating tickets list, use proportional method to extimate injected version if not known
-			totalVersions = releases.size();
-			versionsToAnalyze = (int)Math.floor(totalVersions*(1-DISCARD_RATE));
-			releaseCommits = getReleaseCommits(PROJECT_NAME, PROJECT_PATH, versionsToAnalyze);
+			new Analyzer(project, executor, jiraClient, metricsCache).run();
 			
-			fileMetrics = Analyzer.analyzeProject(JAVA_EXTENSION, versionsToAnalyze);
-			
-			Release.saveReleasesToCSV(SAVE_PATH, PROJECT_NAME, releases);
-			Ticket.saveTicketsToCSV(SAVE_PATH, PROJECT_NAME, tickets);
-			FileMetrics.saveFileMetricsToCSV(SAVE_PATH, PROJECT_NAME, PROJECT_PATH, fileMetrics, CSV_Mode.IT);
-			FileMetrics.saveTrainingsForML(SAVE_PATH, fileMetrics, versionsToAnalyze);
-			FileMetrics.saveTestsForML(SAVE_PATH, fileMetrics, versionsToAnalyze);
-			
-			WekaTools.generateAllArff(SOURCES_PATH);
-			WekaTools.walkForwardToCSV(SOURCES_PATH, versionsToAnalyze, SAVE_PATH, PROJECT_NAME, CSV_Mode.IT);
-			
-		} catch (JSONException | IOException e) {
+		} catch (IOException e) {
 			logger.log(Level.SEVERE, ERROR, e);
+		} finally {
+			executor.shutdownNow();
+			metricsCache.save();
 		}
 		
 	}
 	
-	public static List<FileMetrics> analyzeProject(String fileExtension, int versionsToAnalyze) {
-		
-		List<List<String>> filesPerVersion = Analyzer.getFilesName(fileExtension, versionsToAnalyze);
-		List<FileMetrics> result = FileMetrics.getFileMetricsFromName(filesPerVersion, versionsToAnalyze);
+	public ProjectDescriptor getProject() {
+		return project;
+	}
+	
+	public MetricsTable getFileMetrics() {
+		return fileMetrics;
+	}
+	
+	public void run() throws IOException {
+		String projectName = project.getName();
+		String savePath = project.getSavePath();
+		String issueStorePath = project.getStorePath(ISSUE_STORE);
+		checkpointStore = new CheckpointStore(project.getStorePath(CHECKPOINTS));
+		String metricsCheckpoint = checkpointStore.getFile(METRICS_CHECKPOINT).getPath();
+		String[] gitRefs = {project.getPath() + "\\.git\\refs\\heads\\" + MASTER, project.getPath() + "\\.git\\packed-refs"};
 		
-		//calculate all sizes
-		Analyzer.setAllSize(result);
-		Analyzer.switchVersion(MASTER);
+		switchVersion(MASTER);
 		
-		//calculate all other metrics
-		for(FileMetrics fm : result) {
-			List<List<Integer>> someMetrics = Analyzer.getMetrics(fm.getName(), fm.getVersion());
-			
-			Integer sum = 0;
-			List<Integer> addedLines = someMetrics.get(0);
-			for(Integer i : addedLines) {
-				sum = sum + i;
-			}
-			fm.setLOCadded(sum);
-			if(!addedLines.isEmpty()) {
-				fm.setAVGLOCadded((double) sum/addedLines.size());
-			}
-			Integer aux = Analyzer.findMaxInteger(addedLines);
-			fm.setMAXLOCadded(aux);
-			
-			Integer diff = 0;
-			List<Integer> deletedLines = someMetrics.get(1);
-			for(Integer i : deletedLines) {
-				diff = diff + i;
-			}
-			fm.setLOCtouched(sum+diff);
-			
-			Integer churnSum = 0;
-			List<Integer> churns = someMetrics.get(2);
-			for(Integer i : churns) {
-				churnSum = churnSum + i;
-			}
-			fm.setChurn(churnSum);
-			if(!churns.isEmpty()) {
-				fm.setAVGchurn((double) (churnSum)/churns.size());
-			}
-			aux = Analyzer.findMaxInteger(churns);
-			fm.setMAXchurn(aux);
-			
-			fm.setNR(someMetrics.get(3).get(0));
-			fm.setNF(someMetrics.get(4).get(0));
-			
-			fm.setBugged(Analyzer.isBugged(fm.getName(), fm.getVersion()));
+		//every stage declares the files it reads and writes, a stage with up to date outputs is skipped
+		IssueStore issueStore = new IssueStore(issueStorePath, projectName, jiraClient);
+		Pipeline pipeline = new Pipeline(projectName);
+		pipeline.add(new Stage("issues", () -> {
+			//only the bugs updated since the last run are downloaded, the store is rewritten only when they changed
+			issueStore.sync();
+			logger.info(issueStore::toString);
+		}).writes(issueStorePath).always());
+		pipeline.add(new Stage("releases", () -> analyzeTickets(issueStore)).dependsOn("issues"));
+		pipeline.add(new Stage("metrics", () -> {
+			fileMetrics = analyzeProject(JAVA_EXTENSION, versionsToAnalyze);
+			checkpointStore.save(METRICS_CHECKPOINT, getMetricsKey(), fileMetrics);
+		}).dependsOn("releases").reads(issueStorePath).reads(gitRefs).writes(metricsCheckpoint)
+				.restoredBy(() -> (fileMetrics = checkpointStore.load(METRICS_CHECKPOINT, getMetricsKey())) != null));
+		pipeline.add(new Stage("export", () -> {
+			Release.saveReleasesToCSV(savePath, projectName, releases);
+			Ticket.saveTicketsToCSV(savePath, projectName, tickets);
+			FileMetrics.saveFileMetricsToCSV(savePath, projectName, fileMetrics, CSV_Mode.IT);
+		}).dependsOn("releases", "metrics").reads(issueStorePath, metricsCheckpoint)
+				.writes(savePath + "\\" + projectName + "VersionsInfo.csv", savePath + "\\" + projectName + "TicketInfo.csv", savePath + "\\" + projectName + "Metrics.csv"));
+		if(SAVE_ML_DATASETS) {
+			pipeline.add(new Stage("datasets", () -> {
+				FileMetrics.saveWalkForwardForML(savePath, fileMetrics, versionsToAnalyze);
+				new WekaBridge(fileMetrics, versionsToAnalyze).saveArff(project.getSourcesPath());
+			}).dependsOn("metrics").reads(metricsCheckpoint).stampedBy(project.getStorePath(DATASETS_STAMP)));
 		}
-		Analyzer.switchVersion(MASTER);
+		pipeline.add(new Stage("evaluation", this::evaluate).dependsOn("metrics").reads(metricsCheckpoint)
+				.writes(savePath + "\\" + projectName + "WekaAnalysis.csv"));
+		
+		pipeline.run();
+		logger.info(checkpointStore::toString);
 		
-		return result;
-	}
-	
-	private static Integer findMaxInteger(List<Integer> integers) {
-		Integer aux = 0;
-		for(Integer j : integers) {
-			if(j > aux) {
-				aux = j;
-			}
-		}
-		return aux;
 	}
 	
-	private static void setAllSize(List<FileMetrics> fms) {
-		//calculate all sizes of Filemetrics list fms
-		for(FileMetrics fm : fms) {
-			fm.setSize(Analyzer.getFileSize(fm.getName(), fm.getVersion())); //per ora devo aggiungerla a mano perch ho solo il costruttore con tutte le metriche calcolate
-		}
+	private void analyzeTickets(IssueStore issueStore) throws IOException {
+		releases = Release.getAllReleases(issueStore);
+		releaseTimeline = new ReleaseTimeline(releases);
+		tickets = Ticket.getFixedBugTickets(releaseTimeline, issueStore);
+		Ticket.setProportional(tickets); //after generating tickets list, use proportional method to extimate injected version if not known
+		ticketRegistry = new TicketRegistry(project.getName(), tickets);
+		versionsToAnalyze = (int)Math.floor(releases.size()*(1-DISCARD_RATE));
+		releaseCommits = getReleaseCommits(project.getPath(), versionsToAnalyze);
 	}
 	
-	private static void switchVersion(String commitID) {
-		String[] checkoutCommand = {CMD, "/c", "git", "checkout", commitID};
-		Analyzer.callCMD(PROJECT_PATH, checkoutCommand);
+	private String getMetricsKey() {
+		//the metrics checkpoint belongs to the commits of the analyzed releases, the tickets are checked by the stage inputs
+		return versionsToAnalyze + ";" + String.join(",", releaseCommits);
 	}
 	
-	private static List<List<String>> getFilesName(String fileExtension, int versionsToAnalyze, boolean discardTests){
-		List<List<String>> result = new ArrayList<>();
+	private void evaluate() {
+		WekaBridge wekaBridge = new WekaBridge(fileMetrics, versionsToAnalyze);
 		
-		for(int k=0; k<versionsToAnalyze; k++) {
-			//change release of the project folder with a checkout to the release date nearest commit
-			Analyzer.switchVersion(releaseCommits.get(k));
-			
-			List<String> files = null;
-			try (Stream<Path> walk = Files.walk(Paths.get(PROJECT_PATH))) {
-				if(discardTests) {
-					files = walk.map(Path::toString).filter(f -> f.endsWith(fileExtension)).filter(f -> ( !f.contains("src\\test") && !f.contains("\\tests\\") )).collect(Collectors.toList());
-				}
-				else {
-					files = walk.map(Path::toString).filter(f -> f.endsWith(fileExtension)).collect(Collectors.toList());
-				}
-				result.add(k, files);
-				
-		    } catch (IOException e) {
-				logger.log(Level.SEVERE, "Error reading folder", e);
-		    }
+		//updateable NaiveBayes does not predict as the batch one, the predictions of the two modes are kept apart
+		long fingerprint = 31 * wekaBridge.getFingerprint() + (INCREMENTAL_TRAINING ? 1 : 0);
+		PredictionStore predictionStore = new PredictionStore(project.getStorePath(PREDICTION_STORE), fingerprint);
+		predictionStore.load();
+		IncrementalTrainer incrementalTrainer = INCREMENTAL_TRAINING ? new IncrementalTrainer(wekaBridge) : null;
+		ModelStore modelStore = new ModelStore(project.getStorePath(MODEL_STORE));
+		try (EvaluationEngine evaluationEngine = new EvaluationEngine(executor)) {
+			//the store is saved after every finished release, a new run resumes from the first unfinished one
+			boolean completed = WekaTools.walkForwardToCSV(wekaBridge, evaluationEngine, ExperimentGrid.standard(), predictionStore, incrementalTrainer, modelStore, project.getSavePath(), project.getName(), CSV_Mode.IT);
+			if(completed) {
+				//only after a complete run, the models of the releases not reached yet are still needed
+				modelStore.evictUnused();
+			}
 		}
-		//switch back to master version
-		Analyzer.switchVersion(MASTER);
-		
-		return result;
-	}
-	
-	private static List<List<String>> getFilesName(String fileExtension, int versionsToAnalyze){
-		return Analyzer.getFilesName(fileExtension, versionsToAnalyze, true);
+		predictionStore.save();
+		logger.info(predictionStore::toString);
+		logger.info(modelStore::toString);
 	}
 	
-	private static int getFileSize(String file, int version) {
-		int size = 0;
+	public MetricsTable analyzeProject(String fileExtension, int versionsToAnalyze) throws IOException {
 		
-		Analyzer.switchVersion(releaseCommits.get(version));
-		try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-			String line;
-		    while ((line = br.readLine()) != null) {
-		       if(!line.isEmpty()) {
-					size++;
-				}
-		    }
-
-		} catch (IOException e) {
-			logger.log(Level.SEVERE, ERROR, e);
-		}
+		//list files and calculate all sizes, one release per task
+		MetricsTable result = analyzeReleases(fileExtension, versionsToAnalyze);
 		
-		return size;
+		//calculate all other metrics with a single pass over the history of the analyzed releases
+		HistoryMiner historyMiner = new HistoryMiner(project.getPath(), project.getName(), releaseTimeline, versionsToAnalyze, ticketRegistry);
+		historyMiner.mine();
+		historyMiner.setMetrics(result);
+		
+		//label buggy files with a single pass over the fix commits
+		BugLabeler bugLabeler = new BugLabeler(project.getPath(), project.getName(), releaseTimeline, ticketRegistry);
+		bugLabeler.label();
+		bugLabeler.setBugged(result);
+		
+		return result;
 	}
 	
-	private static List<List<Integer>> getMetrics(String file, int version) { //return a list of lists, for addedLines, deletedLines, NR, NF
-		List<List<Integer>> modifiedLines = new ArrayList<>();
-		if(releases == null) {
-			return modifiedLines;
-		}
-		
-		final String toRepalce = "T00:00";
-		List<Integer> insertions = new ArrayList<>();
-		List<Integer> deletions = new ArrayList<>();
-		List<Integer> churns = new ArrayList<>();
-		List<Integer> nr = new ArrayList<>();
-		List<Integer> nf = new ArrayList<>();
-		Integer r = 0;
-		Integer f = 0;
-
-		String beforeDate = releases.get(version+1).getReleaseDate().toString().replace(toRepalce, "");
-		String afterDate = releases.get(version).getReleaseDate().toString().replace(toRepalce, "");
-		String[] cmd = {CMD, "/c", "git", "log", "--stat", "--before='" + beforeDate + "'", "--after='" + afterDate + "'", "--", file.replace(PROJECT_PATH + "\\", "")};
+	private MetricsTable analyzeReleases(String fileExtension, int versionsToAnalyze) throws IOException {
+		MetricsTable result = new MetricsTable();
 		
-		String cmdOutput = Analyzer.callCMD(PROJECT_PATH, cmd);
-		String[] parsedCMD = cmdOutput.split("\n");
+		//files with the same content share the same blob, so their metrics are calculated only once
+		List<Future<MetricsTable>> releaseTasks = new ArrayList<>();
+		for(int k=0; k<versionsToAnalyze; k++) {
+			final int version = k;
+			releaseTasks.add(executor.submit(() -> analyzeReleaseOrRestore(fileExtension, version)));
+		}
 		
-		String commitTicketID = null;
-		Integer ins;
-		Integer del;
-		for(String line : parsedCMD) {
-			if(line.startsWith("commit ")) {
-				commitTicketID = null;
-				r++;
-			}
-			else if(commitTicketID == null && line.contains(PROJECT_NAME.toUpperCase() + "-")) {
-					commitTicketID = PROJECT_NAME.toUpperCase() + "-" + Analyzer.extractNumber(line);
-					if(Analyzer.isFixedTicket(commitTicketID)) {
-						f++;
-					}
+		try {
+			//merge in release order, whatever order the tasks complete in
+			for(Future<MetricsTable> releaseTask : releaseTasks) {
+				result.append(releaseTask.get());
 			}
-			else if(line.contains("1 file changed,")) {
-				ins = Analyzer.getInsertions(line);
-				del = Analyzer.getDeletions(line);
-				
-				insertions.add(ins);
-				deletions.add(del);
-				churns.add(ins-del);
+		} catch (ExecutionException e) {
+			//the finished releases are already checkpointed, a partial table must not look complete
+			throw new IOException(ERROR + " " + project, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ERROR + " " + project);
+		} finally {
+			//the executor is shared, only the tasks of this analysis are cancelled
+			for(Future<MetricsTable> releaseTask : releaseTasks) {
+				releaseTask.cancel(true);
 			}
 		}
-		nr.add(r);
-		nf.add(f);
 		
-		modifiedLines.add(0, insertions);
-		modifiedLines.add(1, deletions);
-		modifiedLines.add(2, churns);
-		modifiedLines.add(3, nr);
-		modifiedLines.add(4, nf);
+		logger.info(metricsCache::toString);
 		
-		return modifiedLines;
+		return result;
 	}
 	
-	private static Integer getInsertions(String stats) {
-		String[] parsedLine = stats.split(",");
-		for(String s : parsedLine) {
-			if(s.contains("insertions(+)") || s.contains("insertion(+)")){
-				return Analyzer.extractNumber(s);
-			}
+	private MetricsTable analyzeReleaseOrRestore(String fileExtension, int version) throws IOException {
+		//a release checkpoint belongs to its commit, so it stays valid across runs whatever happens to the tickets
+		String name = "Release" + (version+1);
+		String key = releaseCommits.get(version) + ";" + fileExtension;
+		MetricsTable result = checkpointStore.load(name, key);
+		if(result == null) {
+			//saved only when the analysis returns, a failed one throws before reaching the store
+			result = analyzeRelease(fileExtension, version);
+			checkpointStore.save(name, key, result);
 		}
 		
-		return 0;
+		return result;
 	}
 	
-	private static Integer getDeletions(String stats) {
-		String[] parsedLine = stats.split(",");
-		for(String s : parsedLine) {
-			if(s.contains("deletions(-)") || s.contains("deletion(-)")){
-				return Analyzer.extractNumber(s);
-			}
+	private MetricsTable analyzeRelease(String fileExtension, int version) throws IOException {
+		if(CHECKOUT_FREE) {
+			//list files from the release tree and calculate all sizes from their blobs
+			MetricsTable result = getFileMetricsFromTree(fileExtension, version);
+			setAllSizeFromBlobs(result);
+			return result;
 		}
 		
-		return 0;
+		//every release has its own worktree, so releases can be checked out at the same time
+		return getFileMetricsFromWorktree(fileExtension, version);
 	}
 	
-	private static boolean isBugged(String file, int version) {
-		String firstReleaseDate = releases.get(0).getReleaseDate().toString().replace("T00:00", "");
-		String[] cmd = {CMD, "/c", "git", "log", "--date=iso", "--after='" + firstReleaseDate + "'", "--", file.replace(PROJECT_PATH + "\\", "")};
-		
-		String cmdOutput = Analyzer.callCMD(PROJECT_PATH, cmd);
-		String[] parsedCMD = cmdOutput.split("\n");
-		
-		String commitTicketID;
-		for(String line : parsedCMD) {
-			if(line.contains(PROJECT_NAME.toUpperCase() + "-")) {
-				commitTicketID = PROJECT_NAME.toUpperCase() + "-" + Analyzer.extractNumber(line);
-				Ticket aux = Analyzer.getTicketByName(commitTicketID); // gets ticket by name only if it is in the fixed bug tickets list !!
-				
-				//if IV <= version of file < FV, -1 because version in FileMetrics is saved from 0 to n-1 instead of in Tickets (from 1 to n)
-				if(aux != null && (aux.getInjectedVersion()-1 <= version && version < aux.getFixedVersion()-1)) {
-					return true;
+	private void setAllSizeFromBlobs(MetricsTable fms) throws IOException {
+		try (GitObjectReader objectReader = new GitObjectReader(project.getPath())) {
+			for(int row = 0; row < fms.size(); row++) {
+				String blobID = fms.getBlobID(row);
+				int[] contentMetrics = metricsCache.get(blobID);
+				if(contentMetrics == null) {
+					contentMetrics = new int[MetricsCache.METRICS];
+					contentMetrics[MetricsCache.SIZE] = objectReader.countNonEmptyLines(blobID);
+					metricsCache.put(blobID, contentMetrics);
 				}
+				fms.setInt(Metric.SIZE, row, contentMetrics[MetricsCache.SIZE]);
 			}
 		}
-		
-		return false;
 	}
 	
-	private static boolean isFixedTicket(String ticketID) {
-		for(Ticket t : tickets) {
-			if(t.getTicketID().equals(ticketID)) {
-				return true;
+	private void switchVersion(String commitID) {
+		String[] checkoutCommand = {CMD, "/c", "git", "checkout", commitID};
+		Analyzer.callCMD(project.getPath(), checkoutCommand);
+	}
+	
+	private MetricsTable getFileMetricsFromWorktree(String fileExtension, int version) throws IOException {
+		MetricsTable result = new MetricsTable();
+		String projectPath = project.getPath();
+		
+		//check out the release date nearest commit in a temporary worktree, the project folder is left untouched
+		Path worktree = Files.createTempDirectory(project.getName() + "Release" + (version+1));
+		String[] addCommand = {CMD, "/c", "git", "worktree", "add", "--detach", worktree.toString(), releaseCommits.get(version)};
+		if(!Analyzer.callCMD(projectPath, addCommand)) {
+			//an empty worktree would give a release with no files
+			Files.deleteIfExists(worktree);
+			throw new IOException("Error checking out release " + (version+1) + " of " + project.getName() + " in " + worktree);
+		}
+		
+		try (Stream<Path> walk = Files.walk(worktree)) {
+			List<String> files = walk.map(Path::toString).filter(f -> f.endsWith(fileExtension)).collect(Collectors.toList());
+			for(String file : files) {
+				//files are named as in the project folder
+				String name = projectPath + file.substring(worktree.toString().length());
+				if(!Analyzer.isTestFile(name)) {
+					int row = result.addRow(Analyzer.toGitPath(projectPath, name), version);
+					result.setInt(Metric.SIZE, row, Analyzer.getFileSize(file));
+				}
+			}
+			
+		} finally {
+			String[] removeCommand = {CMD, "/c", "git", "worktree", "remove", "--force", worktree.toString()};
+			if(!Analyzer.callCMD(projectPath, removeCommand)) {
+				//the files are already read, only the worktree is left behind
+				logger.log(Level.WARNING, "Error removing worktree {0}, remove it with git worktree prune", worktree);
 			}
 		}
-		return false;
+		
+		return result;
 	}
 	
-	private static Ticket getTicketByName(String ticketID) {
-		for(Ticket t : tickets) {
-			if(t.getTicketID().equals(ticketID)) {
-				return t;
+	private MetricsTable getFileMetricsFromTree(String fileExtension, int version) throws IOException {
+		MetricsTable result = new MetricsTable();
+		String projectPath = project.getPath();
+		
+		//list the files of the release commit without touching the working tree
+		String[] lsTreeCommand = {CMD, "/c", "git", "ls-tree", "-r", releaseCommits.get(version)};
+		boolean succeeded = CommandRunner.run(projectPath, lsTreeCommand, line -> {
+			//<mode> blob <blobID> TAB <path>
+			int tab = CommandRunner.indexOf(line, '\t', 0);
+			if(tab < 0 || !CommandRunner.endsWith(line, fileExtension)) {
+				return;
 			}
+			String gitPath = line.subSequence(tab + 1, line.length()).toString();
+			if(!Analyzer.isTestFile(Analyzer.toFilePath(projectPath, gitPath))) {
+				int row = result.addRow(gitPath, version);
+				int blobStart = tab;
+				while(blobStart > 0 && line.charAt(blobStart - 1) != ' ') {
+					blobStart--;
+				}
+				result.setBlobID(row, line.subSequence(blobStart, tab).toString());
+			}
+		});
+		if(!succeeded) {
+			//a truncated listing would be checkpointed as the whole release
+			throw new IOException("Error listing the files of release " + (version+1) + " of " + project.getName());
 		}
 		
-		return null;
+		return result;
 	}
 	
-	private static String callCMD(String path, String[] commands) {
-		ProcessBuilder procBuilder = new ProcessBuilder(commands).directory(new File(path));
-		procBuilder.redirectErrorStream(true);
-		Process proc = null;
-		StringBuilder result = new StringBuilder("");
-		
-		try {
-			proc = procBuilder.start();
-			BufferedReader stdInput = new BufferedReader(new InputStreamReader(proc.getInputStream()));
+	private static boolean isTestFile(String file) {
+		return file.contains("src\\test") || file.contains("\\tests\\");
+	}
+	
+	private static int getFileSize(String file) {
+		int size = 0;
 		
-			String s = null;
-			while ((s = stdInput.readLine()) != null) {
-			    result.append(s+"\n");
-			}
-			
+		try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+			String line;
+		    while ((line = br.readLine()) != null) {
+		       if(!line.isEmpty()) {
+					size++;
+				}
+		    }
+
 		} catch (IOException e) {
 			logger.log(Level.SEVERE, ERROR, e);
 		}
 		
-		return result.toString();
+		return size;
+	}
+	
+	static boolean callCMD(String path, String[] commands) {
+		//run a command whose output is not needed
+		return CommandRunner.run(path, commands, line -> { });
 	}
 	
-	private static Integer extractNumber(String str) {
-        if(str == null || str.isEmpty()){
+	static int extractNumber(CharSequence str) {
+        if(str == null || str.length() == 0){
             return 0;
         }
         
-        StringBuilder sb = new StringBuilder("");
+        int number = 0;
         boolean found = false;
-        for(char c : str.toCharArray()){
+        for(int i = 0; i < str.length(); i++){
+            char c = str.charAt(i);
             if(Character.isDigit(c)){
-                sb.append(c);
+                int digit = Character.digit(c, 10);
+                if(number > (Integer.MAX_VALUE - digit) / 10) {
+                    //too long for a ticket number (e.g. a hash or a timestamp), no ticket has a negative one
+                    return NOT_A_NUMBER;
+                }
+                number = number * 10 + digit;
                 found = true;
             } else if(found){
                 // If we already found a digit before and this char is not a digit, stop looping
@@ -361,26 +398,34 @@ public class Analyzer {
             }
         }
         
-        if(!sb.toString().equals("")){
-            return Integer.parseInt(sb.toString());
-        }
-        
-        return 0;
+        return number;
     }
 	
-	private static List<String> getReleaseCommits(String projectName, String projectPath, int versionsToAnalyze){
+	static String toGitPath(String projectPath, String file) {
+		//from the absolute path of a file in the working tree to the path used by git
+		return file.replace(projectPath + "\\", "").replace("\\", "/");
+	}
+	
+	static String toFilePath(String projectPath, String gitPath) {
+		return projectPath + "\\" + gitPath.replace("/", "\\");
+	}
+	
+	private List<String> getReleaseCommits(String projectPath, int versionsToAnalyze) throws IOException {
 		List<String> commits = new ArrayList<>();
-		try {
-			releases = Release.getAllReleases(projectName);
-			
-			for(int k=0; k<versionsToAnalyze; k++) {
-				//find first commit of the release 'K'
-				String[] commands = {CMD, "/c", "git", "log", "--date=iso", "--name-status", "--before='" + releases.get(k).getReleaseDate() + "'", "HEAD"};
-				String[] aux = Analyzer.callCMD(projectPath, commands).split("\n", 2);
-				commits.add(k, aux[0].replace("commit ", ""));
+		
+		for(int k=0; k<versionsToAnalyze; k++) {
+			//find first commit of the release 'K'
+			String[] commands = {CMD, "/c", "git", "log", "-1", "--date=iso", "--before='" + releaseTimeline.getReleaseDate(k) + "'", "HEAD"};
+			StringBuilder commit = new StringBuilder();
+			boolean succeeded = CommandRunner.run(projectPath, commands, line -> {
+				if(commit.length() == 0 && CommandRunner.startsWith(line, "commit ")) {
+					commit.append(line, "commit ".length(), line.length());
+				}
+			});
+			if(!succeeded) {
+				throw new IOException("Error finding the commit of release " + (k+1) + " of " + project.getName());
 			}
-		} catch (JSONException | IOException e) {
-			logger.log(Level.SEVERE, ERROR, e);
+			commits.add(k, commit.toString());
 		}
 
 		return commits;
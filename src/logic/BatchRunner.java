@@ -0,0 +1,170 @@
+package logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class BatchRunner {
+	public static final int PARALLEL_PROJECTS = 4; //pipelines running at the same time, their work shares the same workers
+	public static final String BATCH_METRICS_CACHE = "Batch" + Analyzer.METRICS_CACHE;
+	
+	private static final Logger logger = Logger.getLogger(BatchRunner.class.getName());
+	
+	private final int parallelProjects;
+	private final int workerThreads;
+	private final JiraClient jiraClient;
+	private final MetricsCache metricsCache;
+	
+	public BatchRunner(int parallelProjects, int workerThreads, JiraClient jiraClient, MetricsCache metricsCache) {
+		//the jira client and the blob metrics are shared: blob ids are content hashes, valid in every repository
+		this.parallelProjects = parallelProjects;
+		this.workerThreads = workerThreads;
+		this.jiraClient = jiraClient;
+		this.metricsCache = metricsCache;
+	}
+	
+	public static void main(String[] args) {
+		//a file with a project descriptor (name;path[;savePath]) on every line
+		if(args.length < 1) {
+			logger.severe("Usage: BatchRunner <projects file>");
+			return;
+		}
+		
+		try {
+			List<ProjectDescriptor> projects = new ArrayList<>();
+			for(String line : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+				if(!line.trim().isEmpty() && !line.startsWith("#")) {
+					projects.add(ProjectDescriptor.parse(line));
+				}
+			}
+			
+			File listFile = new File(args[0]).getAbsoluteFile();
+			MetricsCache metricsCache = new MetricsCache(listFile.getParent() + "\\" + BATCH_METRICS_CACHE, Analyzer.METRICS_CACHE_SIZE);
+			metricsCache.load();
+			JiraClient jiraClient = Analyzer.JIRA_OFFLINE ? null : new JiraClient(Analyzer.JIRA_URL, JiraClient.MAX_PARALLEL_PAGES);
+			
+			BatchRunner batchRunner = new BatchRunner(PARALLEL_PROJECTS, Analyzer.WORKER_THREADS, jiraClient, metricsCache);
+			long start = System.nanoTime();
+			List<ProjectReport> reports = batchRunner.run(projects);
+			long wallNanos = System.nanoTime() - start;
+			metricsCache.save();
+			logger.info(() -> BatchRunner.toReport(reports, wallNanos, Analyzer.WORKER_THREADS));
+		
+		} catch (IOException | IllegalArgumentException e) {
+			logger.log(Level.SEVERE, "Error in batch run", e);
+		}
+	}
+	
+	public List<ProjectReport> run(List<ProjectDescriptor> projects) {
+		//the pipelines mostly wait on their tasks, the workers of the scheduler bound the cpu
+		List<ProjectReport> reports = new ArrayList<>();
+		ExecutorService pipelines = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelProjects, projects.size())));
+		try (FairScheduler scheduler = new FairScheduler(workerThreads)) {
+			List<Future<ProjectReport>> runs = new ArrayList<>();
+			for(ProjectDescriptor project : projects) {
+				runs.add(pipelines.submit(() -> runProject(project, scheduler)));
+			}
+			
+			for(int i = 0; i < runs.size(); i++) {
+				reports.add(BatchRunner.getReport(runs.get(i), projects.get(i)));
+			}
+		} catch (InterruptedException e) {
+			logger.log(Level.SEVERE, "Error in batch run", e);
+			Thread.currentThread().interrupt();
+		} finally {
+			pipelines.shutdownNow();
+		}
+		
+		return reports;
+	}
+	
+	private static ProjectReport getReport(Future<ProjectReport> run, ProjectDescriptor project) throws InterruptedException {
+		//an error escaping runProject fails only its own report, the ones after it are still collected
+		try {
+			return run.get();
+		
+		} catch (ExecutionException e) {
+			logger.log(Level.SEVERE, Analyzer.ERROR + " " + project, e);
+			return new ProjectReport(project.getName(), false, 0, 0, 0);
+		}
+	}
+	
+	private ProjectReport runProject(ProjectDescriptor project, FairScheduler scheduler) {
+		FairScheduler.Lane lane = scheduler.newLane(project.getName());
+		long start = System.nanoTime();
+		boolean succeeded = false;
+		try {
+			//a failure stops only its own project
+			new Analyzer(project, lane, jiraClient, metricsCache).run();
+			succeeded = true;
+		
+		} catch (IOException | RuntimeException e) {
+			logger.log(Level.SEVERE, Analyzer.ERROR + " " + project, e);
+		} finally {
+			lane.shutdownNow();
+		}
+		
+		return new ProjectReport(project.getName(), succeeded, System.nanoTime() - start, lane.getCompleted(), lane.getBusyNanos());
+	}
+	
+	static String toReport(List<ProjectReport> reports, long wallNanos, int workerThreads) {
+		StringBuilder result = new StringBuilder("Batch report\n");
+		long busyNanos = 0;
+		long tasks = 0;
+		int succeeded = 0;
+		for(ProjectReport report : reports) {
+			result.append(report).append("\n");
+			busyNanos += report.busyNanos;
+			tasks += report.tasks;
+			if(report.succeeded) {
+				succeeded++;
+			}
+		}
+		
+		//throughput of the whole batch and share of the worker time spent on tasks
+		double wallSeconds = wallNanos / 1e9;
+		result.append(String.format(Locale.US, "Total: %d/%d projects, %d tasks in %.1f s, %.2f tasks/s, %.2f projects/h, workers busy %.0f%%",
+				succeeded, reports.size(), tasks, wallSeconds, tasks / Math.max(wallSeconds, 1e-9),
+				3600 * succeeded / Math.max(wallSeconds, 1e-9), 100 * busyNanos / Math.max(wallNanos * (double) workerThreads, 1)));
+		
+		return result.toString();
+	}
+	
+	public static class ProjectReport {
+		private final String name;
+		private final boolean succeeded;
+		private final long elapsedNanos;
+		private final long tasks;
+		private final long busyNanos;
+		
+		public ProjectReport(String name, boolean succeeded, long elapsedNanos, long tasks, long busyNanos) {
+			this.name = name;
+			this.succeeded = succeeded;
+			this.elapsedNanos = elapsedNanos;
+			this.tasks = tasks;
+			this.busyNanos = busyNanos;
+		}
+		
+		public boolean isSucceeded() {
+			return succeeded;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format(Locale.US, "%s: %s in %.1f s, %d tasks, %.1f s of workers",
+					name, succeeded ? "done" : "failed", elapsedNanos / 1e9, tasks, busyNanos / 1e9);
+		}
+	}
+	
+}
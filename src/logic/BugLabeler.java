@@ -0,0 +1,109 @@
+package logic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BugLabeler {
+	private static final String COMMIT = "commit ";
+	private static final String MESSAGE_INDENT = "    ";
+	private static final String[] HEADERS = {"Author:", "Date:", "Merge:"};
+	
+	private final String projectPath;
+	private final String ticketPrefix;
+	private final ReleaseTimeline timeline;
+	private final TicketRegistry ticketRegistry;
+	
+	//git path -> versions (from 0 to n-1) in which the file is buggy
+	private final Map<String, BitSet> buggyVersions;
+	
+	//fixed tickets referenced by the commit being parsed
+	private final List<Ticket> commitTickets;
+	
+	public BugLabeler(String projectPath, String projectName, ReleaseTimeline timeline, TicketRegistry ticketRegistry) {
+		this.projectPath = projectPath;
+		this.ticketPrefix = projectName.toUpperCase() + "-";
+		this.timeline = timeline;
+		this.buggyVersions = new HashMap<>();
+		this.commitTickets = new ArrayList<>();
+		this.ticketRegistry = ticketRegistry;
+	}
+	
+	public void label() throws IOException {
+		//every commit since the first release with the files it touched
+		String firstReleaseDate = timeline.getReleaseDate(0).toString().replace("T00:00", "");
+		String[] cmd = {Analyzer.CMD, "/c", "git", "log", "--name-only", "--no-renames", "--date=iso", "--after='" + firstReleaseDate + "'"};
+		
+		//lines are parsed while git writes them, the log is never held in memory
+		if(!CommandRunner.run(projectPath, cmd, this::parseLine)) {
+			//a log cut by an error or a timeout would leave buggy files unlabeled
+			throw new IOException("Error reading the fix commits of " + projectPath);
+		}
+	}
+	
+	public void setBugged(MetricsTable fileMetrics) {
+		for(int row = 0; row < fileMetrics.size(); row++) {
+			fileMetrics.setBugged(row, isBugged(fileMetrics.getPath(row), fileMetrics.getVersion(row)));
+		}
+	}
+	
+	public boolean isBugged(String gitPath, int version) {
+		BitSet versions = buggyVersions.get(gitPath);
+		return versions != null && versions.get(version);
+	}
+	
+	public List<String> getBuggyFiles(int version) {
+		//git paths of the files buggy in the version (from 0 to n-1)
+		List<String> result = new ArrayList<>();
+		for(Map.Entry<String, BitSet> entry : buggyVersions.entrySet()) {
+			if(entry.getValue().get(version)) {
+				result.add(entry.getKey());
+			}
+		}
+		
+		return result;
+	}
+	
+	private void parseLine(CharSequence line) {
+		if(CommandRunner.startsWith(line, COMMIT)) {
+			commitTickets.clear();
+		}
+		else if(CommandRunner.startsWith(line, MESSAGE_INDENT)) {
+			if(CommandRunner.contains(line, ticketPrefix)) {
+				Ticket ticket = ticketRegistry.get(Analyzer.extractNumber(line)); //only tickets in the fixed bug tickets list
+				if(ticket != null) {
+					commitTickets.add(ticket);
+				}
+			}
+		}
+		else if(line.length() > 0 && !commitTickets.isEmpty() && !isHeader(line)) {
+			setBuggyVersions(line.toString());
+		}
+	}
+	
+	private void setBuggyVersions(String gitPath) {
+		BitSet versions = buggyVersions.computeIfAbsent(gitPath, k -> new BitSet());
+		for(Ticket t : commitTickets) {
+			//IV <= version < FV, -1 because versions in FileMetrics go from 0 to n-1 instead of in Tickets (from 1 to n)
+			int from = Math.max(t.getInjectedVersion() - 1, 0);
+			int to = t.getFixedVersion() - 1;
+			if(from < to) {
+				versions.set(from, to);
+			}
+		}
+	}
+	
+	private static boolean isHeader(CharSequence line) {
+		for(String header : HEADERS) {
+			if(CommandRunner.startsWith(line, header)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+}
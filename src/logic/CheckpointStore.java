@@ -0,0 +1,82 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class CheckpointStore {
+	private static final String EXTENSION = ".checkpoint";
+	
+	private final File directory;
+	private final AtomicInteger restored;
+	private final AtomicInteger saved;
+	
+	public CheckpointStore(String directory) {
+		//one file for every finished piece of a long stage, a new run restarts after the last one
+		this.directory = new File(directory);
+		this.directory.mkdirs();
+		this.restored = new AtomicInteger();
+		this.saved = new AtomicInteger();
+	}
+	
+	public File getFile(String name) {
+		return new File(directory, name + EXTENSION);
+	}
+	
+	public MetricsTable load(String name, String key) {
+		//null when missing or made from other inputs, the key tells them apart
+		File file = getFile(name);
+		if(!file.exists()) {
+			return null;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if(!in.readUTF().equals(key)) {
+				return null;
+			}
+			MetricsTable result = MetricsTable.read(in);
+			restored.incrementAndGet();
+			return result;
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(CheckpointStore.class.getName());
+			logger.log(Level.WARNING, "Error reading checkpoint " + name + ", it will be computed again", e);
+			return null;
+		}
+	}
+	
+	public void save(String name, String key, MetricsTable table) {
+		//written under a temporary name and then renamed, a crash never leaves a partial checkpoint behind
+		File file = getFile(name);
+		File temporary = new File(directory, name + EXTENSION + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				out.writeUTF(key);
+				table.write(out);
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			saved.incrementAndGet();
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(CheckpointStore.class.getName());
+			logger.log(Level.SEVERE, "Error writing checkpoint " + name, e);
+			temporary.delete();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Checkpoint store: " + restored.get() + " checkpoints restored, " + saved.get() + " saved";
+	}
+	
+}
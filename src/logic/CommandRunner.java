@@ -0,0 +1,224 @@
+package logic;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class CommandRunner {
+	public static final long DEFAULT_TIMEOUT = 30;
+	public static final TimeUnit DEFAULT_TIMEOUT_UNIT = TimeUnit.MINUTES;
+	
+	private static final int BUFFER_SIZE = 8192;
+	private static final Logger logger = Logger.getLogger(CommandRunner.class.getName());
+	
+	//kills the processes running past their timeout
+	private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "CommandRunner-watchdog");
+		t.setDaemon(true);
+		return t;
+	});
+	
+	private CommandRunner() {
+	    throw new IllegalStateException("CommandRunner is a static class");
+	}
+	
+	@FunctionalInterface
+	public interface LineHandler {
+		//the line is a view over a reused buffer, valid only during the call: use toString() to keep it
+		void onLine(CharSequence line);
+	}
+	
+	public static boolean run(String path, String[] commands, LineHandler handler) {
+		return CommandRunner.run(path, commands, handler, DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT);
+	}
+	
+	public static boolean run(String path, String[] commands, LineHandler handler, long timeout, TimeUnit unit) {
+		ProcessBuilder procBuilder = new ProcessBuilder(commands).directory(new File(path));
+		Process proc;
+		try {
+			proc = procBuilder.start();
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "Error starting " + String.join(" ", commands), e);
+			return false;
+		}
+		
+		//stderr is drained on its own thread, so a full pipe never blocks the process
+		Thread stderrDrainer = new Thread(() -> drainErrors(proc, commands), "CommandRunner-stderr");
+		stderrDrainer.setDaemon(true);
+		stderrDrainer.start();
+		ScheduledFuture<?> killer = watchdog.schedule(() -> CommandRunner.destroyTree(proc), timeout, unit);
+		
+		try (Reader stdOutput = new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8)) {
+			CommandRunner.readLines(stdOutput, handler);
+			int exitCode = proc.waitFor();
+			//cancelled as soon as the process is done: it timed out only if the watchdog already ran
+			boolean timedOut = !killer.cancel(false);
+			stderrDrainer.join();
+			if(timedOut) {
+				logger.log(Level.SEVERE, "Timeout running {0}", String.join(" ", commands));
+				return false;
+			}
+			return exitCode == 0;
+		
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "Error reading output of " + String.join(" ", commands), e);
+		} catch (InterruptedException e) {
+			CommandRunner.destroyTree(proc);
+			Thread.currentThread().interrupt();
+		} finally {
+			killer.cancel(false);
+		}
+		
+		return false;
+	}
+	
+	private static void destroyTree(Process proc) {
+		//the children first: git started by cmd.exe keeps the output pipe open after the wrapper is gone
+		proc.descendants().forEach(ProcessHandle::destroyForcibly);
+		proc.destroyForcibly();
+	}
+	
+	private static void readLines(Reader reader, LineHandler handler) throws IOException {
+		char[] buffer = new char[BUFFER_SIZE];
+		LineView line = new LineView();
+		int start = 0;
+		int end = 0;
+		int read;
+		
+		while((read = reader.read(buffer, end, buffer.length - end)) != -1) {
+			int scan = end;
+			end += read;
+			for(int i = scan; i < end; i++) {
+				if(buffer[i] == '\n') {
+					handler.onLine(line.set(buffer, start, i));
+					start = i + 1;
+				}
+			}
+			
+			//keep the incomplete line at the beginning of the buffer, growing it only for very long lines
+			if(start > 0) {
+				System.arraycopy(buffer, start, buffer, 0, end - start);
+				end -= start;
+				start = 0;
+			}
+			else if(end == buffer.length) {
+				char[] larger = new char[buffer.length * 2];
+				System.arraycopy(buffer, 0, larger, 0, end);
+				buffer = larger;
+			}
+		}
+		if(end > start) {
+			handler.onLine(line.set(buffer, start, end));
+		}
+	}
+	
+	private static void drainErrors(Process proc, String[] commands) {
+		try (BufferedReader stdError = new BufferedReader(new InputStreamReader(proc.getErrorStream(), StandardCharsets.UTF_8))) {
+			String s;
+			while ((s = stdError.readLine()) != null) {
+				logger.log(Level.FINE, "{0}: {1}", new Object[] {commands.length > 3 ? commands[3] : commands[0], s});
+			}
+		} catch (IOException e) {
+			logger.log(Level.FINE, "Error reading stderr", e);
+		}
+	}
+	
+	public static boolean startsWith(CharSequence line, String prefix) {
+		if(line.length() < prefix.length()) {
+			return false;
+		}
+		for(int i = 0; i < prefix.length(); i++) {
+			if(line.charAt(i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	public static boolean endsWith(CharSequence line, String suffix) {
+		int offset = line.length() - suffix.length();
+		if(offset < 0) {
+			return false;
+		}
+		for(int i = 0; i < suffix.length(); i++) {
+			if(line.charAt(offset + i) != suffix.charAt(i)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	public static int indexOf(CharSequence line, char c, int from) {
+		for(int i = from; i < line.length(); i++) {
+			if(line.charAt(i) == c) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	public static boolean contains(CharSequence line, String target) {
+		int last = line.length() - target.length();
+		for(int i = 0; i <= last; i++) {
+			int j = 0;
+			while(j < target.length() && line.charAt(i + j) == target.charAt(j)) {
+				j++;
+			}
+			if(j == target.length()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private static class LineView implements CharSequence {
+		private char[] chars;
+		private int offset;
+		private int length;
+		
+		private LineView set(char[] chars, int from, int to) {
+			//lines of git output on Windows may end with \r\n
+			if(to > from && chars[to - 1] == '\r') {
+				to--;
+			}
+			this.chars = chars;
+			this.offset = from;
+			this.length = to - from;
+			return this;
+		}
+		
+		@Override
+		public int length() {
+			return length;
+		}
+		
+		@Override
+		public char charAt(int index) {
+			return chars[offset + index];
+		}
+		
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(chars, offset + start, end - start);
+		}
+		
+		@Override
+		public String toString() {
+			return new String(chars, offset, length);
+		}
+	}
+	
+}
@@ -0,0 +1,54 @@
+package logic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DatasetCache {
+	private final WekaBridge bridge;
+	private final IncrementalTrainer incrementalTrainer;
+	private final ModelStore modelStore;
+	
+	//release -> number of cells that will use its sets
+	private final Map<Integer, Integer> plannedUses;
+	
+	//release -> its sets, built at the first use and dropped after the last one
+	private final Map<Integer, Entry> entries;
+	
+	public DatasetCache(WekaBridge bridge, IncrementalTrainer incrementalTrainer, ModelStore modelStore) {
+		this.bridge = bridge;
+		this.incrementalTrainer = incrementalTrainer;
+		this.modelStore = modelStore;
+		this.plannedUses = new ConcurrentHashMap<>();
+		this.entries = new ConcurrentHashMap<>();
+	}
+	
+	public void expect(int release) {
+		//to be called for every cell that will acquire the release, before any of them runs
+		plannedUses.merge(release, 1, Integer::sum);
+	}
+	
+	public ReleaseDatasets acquire(int release) {
+		//built only once, whatever the number of cells asking for it at the same time
+		return entries.computeIfAbsent(release, r -> new Entry(new ReleaseDatasets(bridge, r, incrementalTrainer, modelStore), plannedUses.getOrDefault(r, 1))).datasets;
+	}
+	
+	public boolean release(int release) {
+		//the walk-forward moved past the release when all its cells are done, true for the last one
+		return entries.computeIfPresent(release, (r, entry) -> --entry.remainingUses > 0 ? entry : null) == null;
+	}
+	
+	public int size() {
+		return entries.size();
+	}
+	
+	private static class Entry {
+		private final ReleaseDatasets datasets;
+		private int remainingUses;
+		
+		private Entry(ReleaseDatasets datasets, int remainingUses) {
+			this.datasets = datasets;
+			this.remainingUses = remainingUses;
+		}
+	}
+	
+}
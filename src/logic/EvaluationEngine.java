@@ -0,0 +1,56 @@
+package logic;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class EvaluationEngine implements Closeable {
+	private final ExecutorService executor;
+	private final boolean ownExecutor;
+	
+	public EvaluationEngine(int threads) {
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		this.ownExecutor = true;
+	}
+	
+	public EvaluationEngine(ExecutorService executor) {
+		//cells run on an executor shared with other work, it is not shut down on close
+		this.executor = executor;
+		this.ownExecutor = false;
+	}
+	
+	public <T> List<T> runAll(List<Callable<T>> cells) throws ExecutionException, InterruptedException {
+		//every cell is independent, they run in any order but results come back in the order of the cells
+		List<Future<T>> futures = new ArrayList<>(cells.size());
+		for(Callable<T> cell : cells) {
+			futures.add(executor.submit(cell));
+		}
+		
+		List<T> results = new ArrayList<>(cells.size());
+		try {
+			for(Future<T> future : futures) {
+				results.add(future.get());
+			}
+		} finally {
+			//on failure the cells still queued are useless
+			for(Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+		
+		return results;
+	}
+	
+	@Override
+	public void close() {
+		if(ownExecutor) {
+			executor.shutdownNow();
+		}
+	}
+	
+}
@@ -0,0 +1,190 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.trees.J48;
+import weka.classifiers.trees.RandomForest;
+
+public class ExperimentGrid implements Iterable<ExperimentGrid.Experiment> {
+	
+	public enum ClassifierType {
+		NAIVE_BAYES("NaiveBayes"),
+		IBK("IBk"),
+		RANDOM_FOREST("RandomForest"),
+		J48("J48");
+		
+		private String name;
+		
+		ClassifierType(String name) {
+			this.name = name;
+		}
+		
+		public String getName() {
+			return this.name;
+		}
+		
+		public Classifier newClassifier() {
+			switch(this) {
+				case NAIVE_BAYES:
+					return new NaiveBayes();
+				case IBK:
+					return new IBk(11);
+				case RANDOM_FOREST:
+					return new RandomForest();
+				default:
+					return new J48();
+			}
+		}
+	
+	}
+	
+	public enum Balancing {
+		NONE("None"),
+		UNDER_SAMPLING("Under-Sampling"),
+		OVER_SAMPLING("Over-Sampling"),
+		SMOTE("SMOTE");
+		
+		private String label;
+		
+		Balancing(String label) {
+			this.label = label;
+		}
+		
+		public String getLabel() {
+			return this.label;
+		}
+	
+	}
+	
+	public enum FeatureSelection {
+		NONE("None"),
+		BEST_FIRST("BestFirst");
+		
+		private String label;
+		
+		FeatureSelection(String label) {
+			this.label = label;
+		}
+		
+		public String getLabel() {
+			return this.label;
+		}
+	
+	}
+	
+	public enum Sensitivity {
+		NONE("None"),
+		THRESHOLD("Threshold"),
+		LEARNING("Learning");
+		
+		private String label;
+		
+		Sensitivity(String label) {
+			this.label = label;
+		}
+		
+		public String getLabel() {
+			return this.label;
+		}
+	
+	}
+	
+	public static class Experiment {
+		private final ClassifierType classifier;
+		private final Balancing balancing;
+		private final FeatureSelection featureSelection;
+		private final Sensitivity sensitivity;
+		
+		public Experiment(ClassifierType classifier, Balancing balancing, FeatureSelection featureSelection, Sensitivity sensitivity) {
+			this.classifier = classifier;
+			this.balancing = balancing;
+			this.featureSelection = featureSelection;
+			this.sensitivity = sensitivity;
+		}
+		
+		public ClassifierType getClassifier() {
+			return classifier;
+		}
+		
+		public Balancing getBalancing() {
+			return balancing;
+		}
+		
+		public FeatureSelection getFeatureSelection() {
+			return featureSelection;
+		}
+		
+		public Sensitivity getSensitivity() {
+			return sensitivity;
+		}
+		
+		public String getConfiguration() {
+			//what the names do not tell: options of the classifier, costs of the sensitivity and version of the preprocessing
+			StringBuilder result = new StringBuilder(ModelStore.getConfiguration(classifier.newClassifier()));
+			if(sensitivity != Sensitivity.NONE) {
+				result.append(";costs ").append(WekaTools.FALSE_POSITIVE_WEIGHT).append(",").append(WekaTools.FALSE_NEGATIVE_WEIGHT);
+			}
+			if(balancing != Balancing.NONE || featureSelection != FeatureSelection.NONE) {
+				result.append(";preprocessing ").append(ReleaseDatasets.PREPROCESSING_VERSION);
+			}
+			
+			return result.toString();
+		}
+	
+	}
+	
+	private final List<Experiment> experiments = new ArrayList<>();
+	
+	public static ExperimentGrid standard() {
+		//every classifier with no technique and then with one technique at a time, as in the original analysis
+		ExperimentGrid grid = new ExperimentGrid();
+		for(ClassifierType c : ClassifierType.values()) {
+			grid.add(c, Balancing.NONE, FeatureSelection.NONE, Sensitivity.NONE);
+			grid.add(c, Balancing.NONE, FeatureSelection.BEST_FIRST, Sensitivity.NONE);
+			grid.add(c, Balancing.UNDER_SAMPLING, FeatureSelection.NONE, Sensitivity.NONE);
+			grid.add(c, Balancing.OVER_SAMPLING, FeatureSelection.NONE, Sensitivity.NONE);
+			grid.add(c, Balancing.SMOTE, FeatureSelection.NONE, Sensitivity.NONE);
+			grid.add(c, Balancing.NONE, FeatureSelection.NONE, Sensitivity.THRESHOLD);
+			grid.add(c, Balancing.NONE, FeatureSelection.NONE, Sensitivity.LEARNING);
+		}
+		
+		return grid;
+	}
+	
+	public static ExperimentGrid full() {
+		//every combination of classifier, balancing, feature selection and sensitivity
+		ExperimentGrid grid = new ExperimentGrid();
+		for(ClassifierType c : ClassifierType.values()) {
+			for(FeatureSelection f : FeatureSelection.values()) {
+				for(Balancing b : Balancing.values()) {
+					for(Sensitivity s : Sensitivity.values()) {
+						grid.add(c, b, f, s);
+					}
+				}
+			}
+		}
+		
+		return grid;
+	}
+	
+	public ExperimentGrid add(ClassifierType classifier, Balancing balancing, FeatureSelection featureSelection, Sensitivity sensitivity) {
+		experiments.add(new Experiment(classifier, balancing, featureSelection, sensitivity));
+		return this;
+	}
+	
+	public int size() {
+		return experiments.size();
+	}
+	
+	@Override
+	public Iterator<Experiment> iterator() {
+		return Collections.unmodifiableList(experiments).iterator();
+	}
+	
+}
@@ -0,0 +1,241 @@
+package logic;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class FairScheduler implements Closeable {
+	private final Object lock;
+	private final List<Thread> workers;
+	private final List<Lane> lanes;
+	
+	//lanes with queued tasks, the one with the least worker time is served first:
+	//every active project gets the same share of the worker time, whatever the length of its tasks
+	private final List<Lane> ready;
+	private boolean closed;
+	
+	public FairScheduler(int threads) {
+		this.lock = new Object();
+		this.ready = new ArrayList<>();
+		this.lanes = new ArrayList<>();
+		this.workers = new ArrayList<>();
+		for(int i = 0; i < Math.max(1, threads); i++) {
+			Thread worker = new Thread(this::work, "fair-worker-" + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+	
+	public Lane newLane(String name) {
+		//an executor of its own for every project, all lanes run on the same workers
+		Lane lane = new Lane(name);
+		synchronized(lock) {
+			lanes.add(lane);
+		}
+		return lane;
+	}
+	
+	public int getThreads() {
+		return workers.size();
+	}
+	
+	private void work() {
+		while(true) {
+			Lane lane;
+			Runnable task;
+			long start;
+			synchronized(lock) {
+				while(ready.isEmpty() && !closed) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						//only interrupts of cancelled tasks reach the workers, they stop when closed
+					}
+				}
+				if(ready.isEmpty()) {
+					return;
+				}
+				start = System.nanoTime();
+				lane = leastServed(start);
+				task = lane.tasks.pollFirst();
+				if(lane.tasks.isEmpty()) {
+					ready.remove(lane);
+					lane.queued = false;
+				}
+				lane.running++;
+				lane.startSum += start;
+			}
+			
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				Logger logger = Logger.getLogger(FairScheduler.class.getName());
+				logger.log(Level.SEVERE, "Error in task of " + lane.name, e);
+			} finally {
+				//the interrupt of a cancelled task must not reach the next task of the worker
+				Thread.interrupted();
+				synchronized(lock) {
+					long elapsed = System.nanoTime() - start;
+					lane.running--;
+					lane.startSum -= start;
+					lane.completed++;
+					lane.busyNanos += elapsed;
+					lane.served += elapsed;
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+	
+	private Lane leastServed(long now) {
+		//ties go to the lane queued first
+		Lane result = null;
+		for(Lane lane : ready) {
+			if(result == null || lane.getServed(now) < result.getServed(now)) {
+				result = lane;
+			}
+		}
+		
+		return result;
+	}
+	
+	private void catchUp(Lane lane, long now) {
+		//a lane becoming active starts from the least served active lane, idle time is not saved up to take the workers later
+		long minServed = Long.MAX_VALUE;
+		for(Lane other : lanes) {
+			if(other != lane && (other.queued || other.running > 0)) {
+				minServed = Math.min(minServed, other.getServed(now));
+			}
+		}
+		if(minServed != Long.MAX_VALUE) {
+			lane.served = Math.max(lane.served, minServed);
+		}
+	}
+	
+	@Override
+	public void close() {
+		//queued tasks still run, then the workers stop
+		synchronized(lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+	}
+	
+	public class Lane extends AbstractExecutorService {
+		private final String name;
+		private final Deque<Runnable> tasks;
+		private boolean queued;
+		private boolean shutdown;
+		private int running;
+		private long startSum;
+		private long completed;
+		private long busyNanos;
+		private long served;
+		
+		private Lane(String name) {
+			this.name = name;
+			this.tasks = new ArrayDeque<>();
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public long getCompleted() {
+			synchronized(lock) {
+				return completed;
+			}
+		}
+		
+		public long getBusyNanos() {
+			//time spent by the workers on the tasks of the lane
+			synchronized(lock) {
+				return busyNanos;
+			}
+		}
+		
+		private long getServed(long now) {
+			//worker time of the finished tasks plus the time spent so far on the running ones
+			return served + running * now - startSum;
+		}
+		
+		@Override
+		public void execute(Runnable command) {
+			synchronized(lock) {
+				if(shutdown || closed) {
+					throw new IllegalStateException("Lane " + name + " is shut down");
+				}
+				tasks.addLast(command);
+				if(!queued) {
+					if(running == 0) {
+						catchUp(this, System.nanoTime());
+					}
+					queued = true;
+					ready.add(this);
+				}
+				lock.notifyAll();
+			}
+		}
+		
+		@Override
+		public void shutdown() {
+			synchronized(lock) {
+				shutdown = true;
+				lock.notifyAll();
+			}
+		}
+		
+		@Override
+		public List<Runnable> shutdownNow() {
+			//the running tasks are not interrupted, the workers are shared with the other lanes
+			synchronized(lock) {
+				shutdown = true;
+				List<Runnable> result = new ArrayList<>(tasks);
+				tasks.clear();
+				if(queued) {
+					ready.remove(this);
+					queued = false;
+				}
+				lock.notifyAll();
+				return result;
+			}
+		}
+		
+		@Override
+		public boolean isShutdown() {
+			synchronized(lock) {
+				return shutdown;
+			}
+		}
+		
+		@Override
+		public boolean isTerminated() {
+			synchronized(lock) {
+				return shutdown && tasks.isEmpty() && running == 0;
+			}
+		}
+		
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized(lock) {
+				while(!(shutdown && tasks.isEmpty() && running == 0)) {
+					long remaining = deadline - System.nanoTime();
+					if(remaining <= 0) {
+						return false;
+					}
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				}
+				return true;
+			}
+		}
+	}
+	
+}
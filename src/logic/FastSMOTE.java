@@ -0,0 +1,347 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+public class FastSMOTE {
+	public static final int DEFAULT_NEIGHBORS = 5;
+	public static final long DEFAULT_SEED = 1;
+	
+	private final double percentage;
+	private int nearestNeighbors;
+	private long randomSeed;
+	private boolean referenceMode;
+	
+	public FastSMOTE(double percentage) {
+		//synthetic minority instances to create, as a percentage of the minority class
+		this.percentage = percentage;
+		this.nearestNeighbors = DEFAULT_NEIGHBORS;
+		this.randomSeed = DEFAULT_SEED;
+		this.referenceMode = false;
+	}
+	
+	public void setNearestNeighbors(int nearestNeighbors) {
+		this.nearestNeighbors = nearestNeighbors;
+	}
+	
+	public void setRandomSeed(long randomSeed) {
+		this.randomSeed = randomSeed;
+	}
+	
+	public void setReferenceMode(boolean referenceMode) {
+		//brute force neighbour search instead of the KD-tree, the output must be the same of the default mode
+		this.referenceMode = referenceMode;
+	}
+	
+	public Instances apply(Instances data) {
+		//original instances first and then the synthetic ones, as the SMOTE filter
+		Instances result = new Instances(data);
+		int classIndex = data.classIndex();
+		int minorityClass = FastSMOTE.getMinorityClass(data);
+		if(minorityClass < 0 || percentage <= 0) {
+			return result;
+		}
+		
+		List<Instance> minority = new ArrayList<>();
+		for(Instance instance : data) {
+			if((int) instance.value(classIndex) == minorityClass) {
+				minority.add(instance);
+			}
+		}
+		int k = Math.min(nearestNeighbors, minority.size() - 1);
+		if(k <= 0) {
+			return result;
+		}
+		
+		//neighbours are searched on the numeric attributes other than the class
+		int[] dims = FastSMOTE.getNumericAttributes(data);
+		double[][] points = new double[minority.size()][dims.length];
+		for(int i = 0; i < points.length; i++) {
+			for(int d = 0; d < dims.length; d++) {
+				points[i][d] = minority.get(i).value(dims[d]);
+			}
+		}
+		
+		boolean[] numeric = new boolean[data.numAttributes()];
+		for(int dim : dims) {
+			numeric[dim] = true;
+		}
+		
+		int[] counts = getSyntheticCounts(minority.size());
+		KDTree tree = referenceMode ? null : new KDTree(points);
+		Instance[][] synthetic = new Instance[minority.size()][];
+		
+		//sequential on the thread of the cell, its lane is already one of the workers of the scheduler
+		//every minority instance has its own random generator, so the result does not depend on the search
+		for(int i = 0; i < minority.size(); i++) {
+			int[] neighbors = tree != null ? tree.nearest(i, k) : FastSMOTE.bruteForceNearest(points, i, k);
+			synthetic[i] = synthesize(minority, i, neighbors, counts[i], numeric, classIndex, minorityClass);
+		}
+		
+		for(Instance[] generated : synthetic) {
+			for(Instance instance : generated) {
+				result.add(instance);
+			}
+		}
+		
+		return result;
+	}
+	
+	public boolean matchesReference(Instances data) {
+		//the same configuration in the default and in the reference mode, every value of every instance must be the same
+		FastSMOTE reference = new FastSMOTE(percentage);
+		reference.setNearestNeighbors(nearestNeighbors);
+		reference.setRandomSeed(randomSeed);
+		reference.setReferenceMode(true);
+		Instances expected = reference.apply(data);
+		Instances actual = apply(data);
+		if(expected.size() != actual.size()) {
+			return false;
+		}
+		
+		for(int i = 0; i < expected.size(); i++) {
+			for(int a = 0; a < data.numAttributes(); a++) {
+				if(Double.compare(expected.get(i).value(a), actual.get(i).value(a)) != 0) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	private int[] getSyntheticCounts(int minoritySize) {
+		//every instance generates the integer part of the percentage, a random subset one more for the rest
+		int[] counts = new int[minoritySize];
+		int perInstance = (int) Math.floor(percentage / 100);
+		int extraCount = (int) ((percentage / 100 - perInstance) * minoritySize);
+		Arrays.fill(counts, perInstance);
+		
+		Integer[] order = new Integer[minoritySize];
+		for(int i = 0; i < minoritySize; i++) {
+			order[i] = i;
+		}
+		List<Integer> shuffled = Arrays.asList(order);
+		Collections.shuffle(shuffled, new Random(randomSeed));
+		for(int i = 0; i < extraCount; i++) {
+			counts[shuffled.get(i)]++;
+		}
+		
+		return counts;
+	}
+	
+	private Instance[] synthesize(List<Instance> minority, int i, int[] neighbors, int count, boolean[] numeric, int classIndex, int minorityClass) {
+		Random rand = new Random(randomSeed * 1000003 + i);
+		Instance base = minority.get(i);
+		Instance[] result = new Instance[count];
+		
+		for(int n = 0; n < count; n++) {
+			Instance neighbor = minority.get(neighbors[rand.nextInt(neighbors.length)]);
+			double[] values = new double[numeric.length];
+			for(int a = 0; a < numeric.length; a++) {
+				if(a == classIndex) {
+					values[a] = minorityClass;
+				}
+				else if(numeric[a]) {
+					//a random point on the segment between the instance and its neighbour
+					double gap = rand.nextDouble();
+					values[a] = base.value(a) + gap * (neighbor.value(a) - base.value(a));
+				}
+				else {
+					//nominal attributes other than the class are not interpolated, the instance keeps its own value
+					values[a] = base.value(a);
+				}
+			}
+			result[n] = new DenseInstance(1.0, values);
+		}
+		
+		return result;
+	}
+	
+	private static int getMinorityClass(Instances data) {
+		//the least frequent class among the ones with at least an instance
+		int[] classCounts = new int[data.numClasses()];
+		for(Instance instance : data) {
+			classCounts[(int) instance.value(data.classIndex())]++;
+		}
+		
+		int result = -1;
+		for(int c = 0; c < classCounts.length; c++) {
+			if(classCounts[c] > 0 && (result < 0 || classCounts[c] < classCounts[result])) {
+				result = c;
+			}
+		}
+		
+		return result;
+	}
+	
+	private static int[] getNumericAttributes(Instances data) {
+		List<Integer> result = new ArrayList<>();
+		for(int a = 0; a < data.numAttributes(); a++) {
+			if(a != data.classIndex() && data.attribute(a).isNumeric()) {
+				result.add(a);
+			}
+		}
+		
+		return result.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
+	private static double distance(double[] a, double[] b) {
+		double result = 0;
+		for(int d = 0; d < a.length; d++) {
+			double diff = a[d] - b[d];
+			result += diff * diff;
+		}
+		
+		return result;
+	}
+	
+	private static boolean closer(double distance, int index, double otherDistance, int otherIndex) {
+		//ties between equal distances are broken by index, so both searches choose the same neighbours
+		return distance < otherDistance || (distance == otherDistance && index < otherIndex);
+	}
+	
+	private static int[] bruteForceNearest(double[][] points, int query, int k) {
+		Neighbors neighbors = new Neighbors(k);
+		for(int i = 0; i < points.length; i++) {
+			if(i != query) {
+				neighbors.offer(i, distance(points[query], points[i]));
+			}
+		}
+		
+		return neighbors.indexes;
+	}
+	
+	private static class Neighbors {
+		//the k nearest found so far, sorted from the nearest
+		private final int[] indexes;
+		private final double[] distances;
+		private int size;
+		
+		private Neighbors(int k) {
+			this.indexes = new int[k];
+			this.distances = new double[k];
+			this.size = 0;
+		}
+		
+		private boolean isFull() {
+			return size == indexes.length;
+		}
+		
+		private double worst() {
+			return distances[size - 1];
+		}
+		
+		private void offer(int index, double distance) {
+			if(isFull() && !closer(distance, index, distances[size - 1], indexes[size - 1])) {
+				return;
+			}
+			
+			int position = isFull() ? size - 1 : size++;
+			while(position > 0 && closer(distance, index, distances[position - 1], indexes[position - 1])) {
+				indexes[position] = indexes[position - 1];
+				distances[position] = distances[position - 1];
+				position--;
+			}
+			indexes[position] = index;
+			distances[position] = distance;
+		}
+	}
+	
+	private static class KDTree {
+		//implicit tree: the node of the range [low, high) is its middle element, split on splitDims of it
+		private final double[][] points;
+		private final int[] order;
+		private final int[] splitDims;
+		
+		private KDTree(double[][] points) {
+			this.points = points;
+			this.order = new int[points.length];
+			this.splitDims = new int[points.length];
+			for(int i = 0; i < order.length; i++) {
+				order[i] = i;
+			}
+			build(0, points.length);
+		}
+		
+		private void build(int low, int high) {
+			if(high - low <= 1) {
+				return;
+			}
+			
+			//split on the dimension with the widest spread
+			int dim = widestDimension(low, high);
+			Integer[] range = new Integer[high - low];
+			for(int i = low; i < high; i++) {
+				range[i - low] = order[i];
+			}
+			Arrays.sort(range, (a, b) -> Double.compare(points[a][dim], points[b][dim]));
+			for(int i = low; i < high; i++) {
+				order[i] = range[i - low];
+			}
+			
+			int mid = (low + high) >>> 1;
+			splitDims[mid] = dim;
+			build(low, mid);
+			build(mid + 1, high);
+		}
+		
+		private int widestDimension(int low, int high) {
+			int result = 0;
+			double widest = -1;
+			for(int d = 0; d < points[order[low]].length; d++) {
+				double min = Double.MAX_VALUE;
+				double max = -Double.MAX_VALUE;
+				for(int i = low; i < high; i++) {
+					min = Math.min(min, points[order[i]][d]);
+					max = Math.max(max, points[order[i]][d]);
+				}
+				if(max - min > widest) {
+					widest = max - min;
+					result = d;
+				}
+			}
+			
+			return result;
+		}
+		
+		private int[] nearest(int query, int k) {
+			Neighbors neighbors = new Neighbors(k);
+			search(0, points.length, query, neighbors);
+			
+			return neighbors.indexes;
+		}
+		
+		private void search(int low, int high, int query, Neighbors neighbors) {
+			if(low >= high) {
+				return;
+			}
+			
+			int mid = (low + high) >>> 1;
+			int node = order[mid];
+			if(node != query) {
+				neighbors.offer(node, distance(points[query], points[node]));
+			}
+			if(high - low == 1) {
+				return;
+			}
+			
+			double diff = points[query][splitDims[mid]] - points[node][splitDims[mid]];
+			boolean leftFirst = diff < 0;
+			search(leftFirst ? low : mid + 1, leftFirst ? mid : high, query, neighbors);
+			
+			//the other side can only hold neighbours as near as the worst one, ties included
+			if(!neighbors.isFull() || diff * diff <= neighbors.worst()) {
+				search(leftFirst ? mid + 1 : low, leftFirst ? high : mid, query, neighbors);
+			}
+		}
+	}
+	
+}
@@ -3,18 +3,25 @@ package logic;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.json.JSONException;
+import logic.MetricsTable.Metric;
 
 public class FileMetrics {
+	public static final String CSV = ".csv";
+	
 	private String name;
 	private int version;
+	private String blobID;
 	private int size;
 	private int totalLocAdded;
 	private int totalLocTouched;
@@ -58,6 +65,14 @@ public class FileMetrics {
 		this.version = version;
 	}
 
+	public String getBlobID() {
+		return blobID;
+	}
+
+	public void setBlobID(String blobID) {
+		this.blobID = blobID;
+	}
+
 	public int getSize() {
 		return size;
 	}
@@ -146,21 +161,6 @@ public class FileMetrics {
 		this.bugged = bugged;
 	}
 	
-	public static List<FileMetrics> getFileMetricsFromName(List<List<String>> filesPerVersion, int versionsToAnalyze){
-		List<FileMetrics> result = new ArrayList<>();
-		
-		for(int k = 0; k < versionsToAnalyze; k++) {
-			//calculate metrics of all files in version k
-			for(String file : filesPerVersion.get(k)) {
-				FileMetrics fm = new FileMetrics(file, k);
-				
-				result.add(fm);
-			}
-		}
-		
-		return result;
-	}
-	
 	public enum CSV_Mode {
 		IT("Version;FileName;Size;LOC_touched;LOC_added;MAX_LOC_added;AVG_LOC_added;Churn;MAX_Churn;AVG_Churn;NR;NF;Bugged\n"),
 		US("Version,FileName,Size,LOC_touched,LOC_added,MAX_LOC_added,AVG_LOC_added,Churn,MAX_Churn,AVG_Churn,NR,NF,Bugged\n");
@@ -177,7 +177,7 @@ public class FileMetrics {
 		
 	}
 	
-	public static void saveFileMetricsToCSV(String savePath, String projectName, String projectPath, List<FileMetrics> fileMetrics, CSV_Mode mode) throws JSONException, IOException {
+	public static void saveFileMetricsToCSV(String savePath, String projectName, MetricsTable fileMetrics, CSV_Mode mode) throws IOException {
 		String outname = savePath + "\\" + projectName + "Metrics.csv";
 		
 		try (FileWriter fileWriter = new FileWriter(outname)) {
@@ -196,22 +196,12 @@ public class FileMetrics {
 			    sep = ",";
 			}
 			
-			for (FileMetrics fm : fileMetrics) {
-				outputBuilder.append(fm.getVersion()+1 + sep);
-				outputBuilder.append(fm.getName().replace(projectPath + "\\", "") + sep);
-				outputBuilder.append(fm.getSize() + sep);
-				outputBuilder.append(fm.getLOCtouched() + sep);
-				outputBuilder.append(fm.getLOCadded() + sep);
-				outputBuilder.append(fm.getMAXLOCadded() + sep);
-				outputBuilder.append(nf.format(fm.getAVGLOCadded()) + sep);
-				outputBuilder.append(fm.getChurn() + sep);
-				outputBuilder.append(fm.getMAXchurn() + sep);
-				outputBuilder.append(nf.format(fm.getAVGchurn()) + sep);
-				outputBuilder.append(fm.getNR() + sep);
-				outputBuilder.append(fm.getNF() + sep);
-				outputBuilder.append(fm.isBugged() + "\n");
+			for (int row = 0; row < fileMetrics.size(); row++) {
+				outputBuilder.append(fileMetrics.getVersion(row)+1).append(sep);
+				outputBuilder.append(fileMetrics.getPath(row).replace("/", "\\")).append(sep);
+				FileMetrics.appendMetrics(outputBuilder, fileMetrics, row, nf, sep);
 			}
-			fileWriter.append(outputBuilder.toString());
+			fileWriter.append(outputBuilder);
 			
 		} catch (Exception e) {
 			Logger logger = Logger.getLogger(Release.class.getName());
@@ -219,84 +209,90 @@ public class FileMetrics {
 		}
 	}
 	
-	public static void saveTrainingsForML(String savePath, List<FileMetrics> fileMetrics, Integer versionsToAnalyze) throws JSONException, IOException {
+	public static void saveWalkForwardForML(String savePath, MetricsTable fileMetrics, Integer versionsToAnalyze) throws IOException {
 		File mlPath = new File(savePath + Analyzer.ML_PATH);
 		if (!mlPath.exists()){
 			mlPath.mkdirs();
 		}
 		
-		for(int k = 0; k < versionsToAnalyze; k++) {
-			String trainingFile = savePath + Analyzer.ML_PATH + "\\" + "Training" + (k+1) + ".csv";
-			
-			try (FileWriter fileWriter = new FileWriter(trainingFile)) {
-				StringBuilder trainingBuilder = new StringBuilder(CSV_Mode.US.getArgs().replace("FileName,", ""));
-				NumberFormat nf = NumberFormat.getInstance(Locale.US);
-			    nf.setGroupingUsed(false);
-			    
-				for (FileMetrics fm : fileMetrics) {
-					if(fm.getVersion() < k) {
-						trainingBuilder.append(fm.getVersion()+1 + ",");
-						trainingBuilder.append(fm.getSize() + ",");
-						trainingBuilder.append(fm.getLOCtouched() + ",");
-						trainingBuilder.append(fm.getLOCadded() + ",");
-						trainingBuilder.append(fm.getMAXLOCadded() + ",");
-						trainingBuilder.append(nf.format(fm.getAVGLOCadded()) + ",");
-						trainingBuilder.append(fm.getChurn() + ",");
-						trainingBuilder.append(fm.getMAXchurn() + ",");
-						trainingBuilder.append(nf.format(fm.getAVGchurn()) + ",");
-						trainingBuilder.append(fm.getNR() + ",");
-						trainingBuilder.append(fm.getNF() + ",");
-						trainingBuilder.append(fm.isBugged() + "\n");
+		NumberFormat nf = NumberFormat.getInstance(Locale.US);
+	    nf.setGroupingUsed(false);
+		byte[] header = CSV_Mode.US.getArgs().replace("FileName,", "").getBytes(StandardCharsets.US_ASCII);
+		Path previousTraining = null;
+		byte[] previousRows = new byte[0];
+		
+		try {
+			for(int k = 0; k < versionsToAnalyze; k++) {
+				Path trainingFile = Paths.get(savePath + Analyzer.ML_PATH + "\\" + "Training" + (k+1) + CSV);
+				Path testFile = Paths.get(savePath + Analyzer.ML_PATH + "\\" + "Test" + (k+1) + CSV);
+				
+				//training k+1 is training k followed by the rows of test k, copied without formatting them again
+				try (FileChannel training = FileChannel.open(trainingFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					if(previousTraining == null) {
+						FileMetrics.writeFully(training, header);
+					}
+					else {
+						FileMetrics.copyFully(previousTraining, training);
+						FileMetrics.writeFully(training, previousRows);
 					}
 				}
-				fileWriter.append(trainingBuilder.toString());
 				
-			} catch (Exception e) {
-				Logger logger = Logger.getLogger(Release.class.getName());
-				logger.log(Level.SEVERE, "Error in training csv writer", e);
+				//only the rows of one release are formatted and kept in memory at a time
+				byte[] rows = FileMetrics.formatRows(fileMetrics, k, nf);
+				try (FileChannel test = FileChannel.open(testFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					FileMetrics.writeFully(test, header);
+					FileMetrics.writeFully(test, rows);
+				}
+				
+				previousTraining = trainingFile;
+				previousRows = rows;
 			}
 			
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(FileMetrics.class.getName());
+			logger.log(Level.SEVERE, "Error in walk-forward csv writer", e);
 		}
 	}
 	
-	public static void saveTestsForML(String savePath, List<FileMetrics> fileMetrics, Integer versionsToAnalyze) throws JSONException, IOException {
-		File mlPath = new File(savePath + Analyzer.ML_PATH);
-		if (!mlPath.exists()){
-			mlPath.mkdirs();
+	private static byte[] formatRows(MetricsTable fileMetrics, int version, NumberFormat nf) {
+		StringBuilder rowsBuilder = new StringBuilder();
+		for (int row = fileMetrics.getFirstRow(version); row < fileMetrics.getEndRow(version); row++) {
+			rowsBuilder.append(fileMetrics.getVersion(row)+1).append(",");
+			FileMetrics.appendMetrics(rowsBuilder, fileMetrics, row, nf, ",");
 		}
 		
-		for(int k = 0; k < versionsToAnalyze; k++) {
-			String testFile = savePath + Analyzer.ML_PATH + "\\" + "Test" + (k+1) + ".csv";
-			
-			try (FileWriter fileWriter = new FileWriter(testFile)) {
-				StringBuilder testBuilder = new StringBuilder(CSV_Mode.US.getArgs().replace("FileName,", ""));
-				NumberFormat nf = NumberFormat.getInstance(Locale.US);
-			    nf.setGroupingUsed(false);
-			    
-				for (FileMetrics fm : fileMetrics) {
-					if(fm.getVersion() == k) {
-						testBuilder.append(fm.getVersion()+1 + ",");
-						testBuilder.append(fm.getSize() + ",");
-						testBuilder.append(fm.getLOCtouched() + ",");
-						testBuilder.append(fm.getLOCadded() + ",");
-						testBuilder.append(fm.getMAXLOCadded() + ",");
-						testBuilder.append(nf.format(fm.getAVGLOCadded()) + ",");
-						testBuilder.append(fm.getChurn() + ",");
-						testBuilder.append(fm.getMAXchurn() + ",");
-						testBuilder.append(nf.format(fm.getAVGchurn()) + ",");
-						testBuilder.append(fm.getNR() + ",");
-						testBuilder.append(fm.getNF() + ",");
-						testBuilder.append(fm.isBugged() + "\n");
-					}
-				}
-				fileWriter.append(testBuilder.toString());
-				
-			} catch (Exception e) {
-				Logger logger = Logger.getLogger(Release.class.getName());
-				logger.log(Level.SEVERE, "Error in test csv writer", e);
+		return rowsBuilder.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+	
+	private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	private static void copyFully(Path source, FileChannel target) throws IOException {
+		try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+			long position = 0;
+			long size = channel.size();
+			while(position < size) {
+				position += channel.transferTo(position, size - position, target);
 			}
-			
 		}
 	}
 	
+	private static void appendMetrics(StringBuilder builder, MetricsTable fileMetrics, int row, NumberFormat nf, String sep) {
+		//all metrics from Size to Bugged, in the order of the csv header
+		for(Metric m : Metric.values()) {
+			if(m.isDecimal()) {
+				builder.append(nf.format(fileMetrics.getDouble(m, row)));
+			}
+			else {
+				builder.append(fileMetrics.getInt(m, row));
+			}
+			builder.append(sep);
+		}
+		builder.append(fileMetrics.isBugged(row)).append("\n");
+	}
+	
 }
@@ -0,0 +1,102 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class GitObjectReader implements Closeable {
+	private static final String MISSING = " missing";
+	
+	private final Process process;
+	private final OutputStream request;
+	private final InputStream response;
+	private final byte[] buffer;
+	
+	public GitObjectReader(String projectPath) throws IOException {
+		//one long-lived process answers every request, objects are read from the database without any checkout
+		String[] commands = {Analyzer.CMD, "/c", "git", "cat-file", "--batch"};
+		ProcessBuilder procBuilder = new ProcessBuilder(commands).directory(new File(projectPath));
+		procBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+		
+		this.process = procBuilder.start();
+		this.request = new BufferedOutputStream(process.getOutputStream());
+		this.response = new BufferedInputStream(process.getInputStream());
+		this.buffer = new byte[8192];
+	}
+	
+	public int countNonEmptyLines(String blobID) throws IOException {
+		long size = requestObject(blobID);
+		int lines = 0;
+		int lineLength = 0;
+		
+		while(size > 0) {
+			int read = response.read(buffer, 0, (int) Math.min(buffer.length, size));
+			if(read < 0) {
+				throw new IOException("Unexpected end of git cat-file output reading " + blobID);
+			}
+			for(int i = 0; i < read; i++) {
+				//same line terminators of BufferedReader.readLine
+				if(buffer[i] == '\n' || buffer[i] == '\r') {
+					if(lineLength > 0) {
+						lines++;
+					}
+					lineLength = 0;
+				}
+				else {
+					lineLength++;
+				}
+			}
+			size -= read;
+		}
+		if(lineLength > 0) {
+			lines++;
+		}
+		response.read(); //newline after the object content
+		
+		return lines;
+	}
+	
+	private long requestObject(String objectID) throws IOException {
+		request.write((objectID + "\n").getBytes(StandardCharsets.US_ASCII));
+		request.flush();
+		
+		//header: <sha> <type> <size>, or <sha> missing
+		String header = readHeader();
+		if(header.endsWith(MISSING)) {
+			throw new IOException("Git object not found: " + objectID);
+		}
+		
+		return Long.parseLong(header.substring(header.lastIndexOf(' ') + 1));
+	}
+	
+	private String readHeader() throws IOException {
+		StringBuilder header = new StringBuilder();
+		int c;
+		while((c = response.read()) != '\n') {
+			if(c < 0) {
+				throw new IOException("Unexpected end of git cat-file output");
+			}
+			header.append((char) c);
+		}
+		
+		return header.toString();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		request.close(); //git cat-file terminates when its input is closed
+		try {
+			process.waitFor();
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+		}
+		response.close();
+	}
+	
+}
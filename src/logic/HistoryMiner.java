@@ -0,0 +1,143 @@
+package logic;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+import logic.MetricsTable.Metric;
+
+public class HistoryMiner {
+	//positions of the counters kept for every (file, version)
+	private static final int ADDED = 0;
+	private static final int DELETED = 1;
+	private static final int MAX_ADDED = 2;
+	private static final int CHURN = 3;
+	private static final int MAX_CHURN = 4;
+	private static final int CHANGES = 5;
+	private static final int NR = 6;
+	private static final int NF = 7;
+	private static final int COUNTERS = 8;
+	
+	private static final String COMMIT = "commit ";
+	private static final String COMMIT_DATE = "CommitDate:";
+	private static final String MESSAGE_INDENT = "    ";
+	
+	private final String projectPath;
+	private final String ticketPrefix;
+	private final ReleaseTimeline timeline;
+	private final int versionsToAnalyze;
+	private final TicketRegistry ticketRegistry;
+	
+	//git path -> counters for each analyzed version
+	private final Map<String, int[][]> history;
+	
+	//state of the commit being parsed
+	private int commitVersion;
+	private boolean commitTicketFound;
+	private boolean fixCommit;
+	
+	public HistoryMiner(String projectPath, String projectName, ReleaseTimeline timeline, int versionsToAnalyze, TicketRegistry ticketRegistry) {
+		this.projectPath = projectPath;
+		this.ticketPrefix = projectName.toUpperCase() + "-";
+		this.timeline = timeline;
+		this.versionsToAnalyze = versionsToAnalyze;
+		this.ticketRegistry = ticketRegistry;
+		this.history = new HashMap<>();
+	}
+	
+	public void mine() throws IOException {
+		//one log over the whole analyzed range, from the first release to the first not analyzed one
+		final String toReplace = "T00:00";
+		String afterDate = timeline.getReleaseDate(0).toString().replace(toReplace, "");
+		String beforeDate = timeline.getReleaseDate(versionsToAnalyze).toString().replace(toReplace, "");
+		String[] cmd = {Analyzer.CMD, "/c", "git", "log", "--numstat", "--no-renames", "--pretty=fuller", "--date=unix", "--before='" + beforeDate + "'", "--after='" + afterDate + "'"};
+		
+		//lines are parsed while git writes them, the log is never held in memory
+		if(!CommandRunner.run(projectPath, cmd, this::parseLine)) {
+			//a log cut by an error or a timeout would give metrics that look valid
+			throw new IOException("Error reading the history of " + projectPath);
+		}
+	}
+	
+	public void setMetrics(MetricsTable fileMetrics) {
+		for(int row = 0; row < fileMetrics.size(); row++) {
+			int[][] fileHistory = history.get(fileMetrics.getPath(row));
+			if(fileHistory == null) {
+				continue; //file never touched in the analyzed range, all metrics stay at 0
+			}
+			
+			int[] counters = fileHistory[fileMetrics.getVersion(row)];
+			int added = counters[ADDED];
+			int churn = counters[CHURN];
+			int changes = counters[CHANGES];
+			
+			fileMetrics.setInt(Metric.LOC_ADDED, row, added);
+			fileMetrics.setInt(Metric.LOC_TOUCHED, row, added + counters[DELETED]);
+			fileMetrics.setInt(Metric.MAX_LOC_ADDED, row, counters[MAX_ADDED]);
+			fileMetrics.setInt(Metric.CHURN, row, churn);
+			fileMetrics.setInt(Metric.MAX_CHURN, row, counters[MAX_CHURN]);
+			if(changes != 0) {
+				fileMetrics.setDouble(Metric.AVG_LOC_ADDED, row, (double) added/changes);
+				fileMetrics.setDouble(Metric.AVG_CHURN, row, (double) churn/changes);
+			}
+			fileMetrics.setInt(Metric.NR, row, counters[NR]);
+			fileMetrics.setInt(Metric.NF, row, counters[NF]);
+		}
+	}
+	
+	private void parseLine(CharSequence line) {
+		if(CommandRunner.startsWith(line, COMMIT)) {
+			commitVersion = -1;
+			commitTicketFound = false;
+			fixCommit = false;
+		}
+		else if(CommandRunner.startsWith(line, COMMIT_DATE)) {
+			long epoch = Long.parseLong(line.subSequence(COMMIT_DATE.length(), line.length()).toString().trim());
+			commitVersion = findVersion(LocalDate.ofInstant(Instant.ofEpochSecond(epoch), ZoneId.systemDefault()));
+		}
+		else if(CommandRunner.startsWith(line, MESSAGE_INDENT)) {
+			//only the first ticket mentioned in the message identifies the commit, as in the per-file analysis
+			if(!commitTicketFound && CommandRunner.contains(line, ticketPrefix)) {
+				commitTicketFound = true;
+				fixCommit = ticketRegistry.contains(Analyzer.extractNumber(line));
+			}
+		}
+		else if(commitVersion >= 0 && line.length() > 0) {
+			parseNumstat(line);
+		}
+	}
+	
+	private void parseNumstat(CharSequence line) {
+		//numstat line: added <TAB> deleted <TAB> path, binary files have '-' instead of numbers
+		int firstTab = CommandRunner.indexOf(line, '\t', 0);
+		int secondTab = firstTab < 0 ? -1 : CommandRunner.indexOf(line, '\t', firstTab + 1);
+		if(secondTab < 0) {
+			return;
+		}
+		
+		int ins = Analyzer.extractNumber(line.subSequence(0, firstTab));
+		int del = Analyzer.extractNumber(line.subSequence(firstTab + 1, secondTab));
+		String gitPath = line.subSequence(secondTab + 1, line.length()).toString();
+		int[] counters = history.computeIfAbsent(gitPath, k -> new int[versionsToAnalyze][COUNTERS])[commitVersion];
+		
+		counters[ADDED] += ins;
+		counters[DELETED] += del;
+		counters[MAX_ADDED] = Math.max(counters[MAX_ADDED], ins);
+		counters[CHURN] += ins - del;
+		counters[MAX_CHURN] = Math.max(counters[MAX_CHURN], ins - del);
+		counters[CHANGES]++;
+		counters[NR]++;
+		if(fixCommit) {
+			counters[NF]++;
+		}
+	}
+	
+	private int findVersion(LocalDate commitDate) {
+		//version k contains commits done from release k to release k+1
+		return Math.min(timeline.findReleaseWindow(commitDate), versionsToAnalyze - 1);
+	}
+	
+}
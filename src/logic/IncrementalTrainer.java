@@ -0,0 +1,105 @@
+package logic;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import logic.ExperimentGrid.ClassifierType;
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.bayes.NaiveBayesUpdateable;
+import weka.classifiers.lazy.IBk;
+import weka.core.Instance;
+
+public class IncrementalTrainer {
+	private final WekaBridge bridge;
+	
+	//one model for every updateable classifier, moved forward one release at a time
+	private final Map<ClassifierType, Chain> chains;
+	
+	public IncrementalTrainer(WekaBridge bridge) {
+		this.bridge = bridge;
+		this.chains = new EnumMap<>(ClassifierType.class);
+		for(ClassifierType classifierType : ClassifierType.values()) {
+			if(IncrementalTrainer.isUpdateable(classifierType)) {
+				chains.put(classifierType, new Chain(classifierType));
+			}
+		}
+	}
+	
+	public static boolean isUpdateable(ClassifierType classifierType) {
+		//J48 and RandomForest can't learn new instances, their models are always rebuilt
+		return classifierType == ClassifierType.NAIVE_BAYES || classifierType == ClassifierType.IBK;
+	}
+	
+	public boolean supports(ClassifierType classifierType) {
+		return chains.containsKey(classifierType);
+	}
+	
+	public double[][] getDistributions(ClassifierType classifierType, int release) throws Exception {
+		//distributions on Test(release) of the model trained on Training(release), null if the model already moved past it
+		return chains.get(classifierType).getDistributions(release);
+	}
+	
+	private static Classifier newUpdateable(ClassifierType classifierType) {
+		if(classifierType == ClassifierType.NAIVE_BAYES) {
+			return new NaiveBayesUpdateable();
+		}
+		
+		return new IBk(11);
+	}
+	
+	private class Chain {
+		private final ClassifierType classifierType;
+		private Classifier model;
+		
+		//release whose training set the model has learned, 0 before the first build
+		private int trainedRelease;
+		
+		//distributions computed while moving past releases not asked yet
+		private final Map<Integer, double[][]> pending;
+		private final BitSet served;
+		
+		private Chain(ClassifierType classifierType) {
+			this.classifierType = classifierType;
+			this.trainedRelease = 0;
+			this.pending = new HashMap<>();
+			this.served = new BitSet();
+		}
+		
+		private synchronized double[][] getDistributions(int release) throws Exception {
+			double[][] result = pending.remove(release);
+			if(result != null) {
+				served.set(release);
+				return result;
+			}
+			if(release < trainedRelease || served.get(release)) {
+				return null;
+			}
+			
+			if(model == null) {
+				//Training(1) has no instances, the model starts from the header
+				model = IncrementalTrainer.newUpdateable(classifierType);
+				model.buildClassifier(bridge.getTraining(1));
+				trainedRelease = 1;
+			}
+			while(trainedRelease < release) {
+				//releases skipped by the cells running late are scored before the model moves past them
+				if(trainedRelease > 1 && !served.get(trainedRelease)) {
+					pending.put(trainedRelease, ReleaseDatasets.score(model, bridge.getTest(trainedRelease)));
+				}
+				
+				//Training(k+1) is Training(k) plus Test(k): only the new release is learned
+				for(Instance instance : bridge.getTest(trainedRelease)) {
+					((UpdateableClassifier) model).updateClassifier(instance);
+				}
+				trainedRelease++;
+			}
+			
+			served.set(release);
+			return ReleaseDatasets.score(model, bridge.getTest(release));
+		}
+	}
+	
+}
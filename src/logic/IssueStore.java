@@ -0,0 +1,177 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class IssueStore {
+	private static final int FORMAT_VERSION = 1;
+	public static final long SYNC_OVERLAP = 24L * 60 * 60 * 1000; //updates searched again before the last one seen, whatever the timezone of the jira server
+	private static final DateTimeFormatter JQL_DATE = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm").withZone(ZoneOffset.UTC);
+	
+	private final String storeFile;
+	private final String projectName;
+	private final JiraClient jiraClient;
+	
+	private List<Release> versions;
+	private final Map<String, JiraIssue> issues;
+	private long lastUpdate;
+	private int synced;
+	
+	public IssueStore(String storeFile, String projectName, JiraClient jiraClient) {
+		//a null client is the offline mode: the store is only replayed
+		this.storeFile = storeFile;
+		this.projectName = projectName;
+		this.jiraClient = jiraClient;
+		this.versions = new ArrayList<>();
+		this.issues = new LinkedHashMap<>();
+	}
+	
+	public List<Release> getVersions() {
+		return versions;
+	}
+	
+	public Collection<JiraIssue> getIssues() {
+		//every bug seen, the ones not fixed anymore are filtered by the tickets
+		return issues.values();
+	}
+	
+	public void sync() throws IOException {
+		boolean loaded = load();
+		if(jiraClient == null) {
+			if(!loaded) {
+				throw new IOException("Offline mode without an issue store for " + projectName + ": " + storeFile);
+			}
+			return;
+		}
+		
+		//the version list is a single request, always read again
+		List<Release> storedVersions = versions;
+		versions = jiraClient.getProjectVersions(projectName, Release::readRelease);
+		
+		String jql = "project=%22" + projectName + "%22AND%22issueType%22=%22Bug%22";
+		if(loaded && lastUpdate > 0) {
+			//every bug updated since the last sync, also the ones that stopped being fixed
+			String since = JQL_DATE.format(Instant.ofEpochMilli(lastUpdate - SYNC_OVERLAP));
+			jql += "AND%22updated%22%3E=%22" + since.replace(" ", "%20") + "%22";
+		}
+		else {
+			jql += "AND(%22status%22=%22closed%22OR%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22";
+		}
+		
+		List<JiraIssue> updates = jiraClient.search(jql, JiraIssue.FIELDS, JiraIssue::read);
+		int changed = 0;
+		for(JiraIssue issue : updates) {
+			//the overlap returns again the bugs of the last sync, they are not changes
+			JiraIssue previous = issues.put(issue.getKey(), issue);
+			if(previous == null || previous.getUpdated() != issue.getUpdated()) {
+				changed++;
+			}
+			lastUpdate = Math.max(lastUpdate, issue.getUpdated());
+		}
+		synced = changed;
+		
+		//the store is written only when something changed, its modified time tells the stages reading it
+		if(!loaded || changed > 0 || !IssueStore.getVersionIDs(versions).equals(IssueStore.getVersionIDs(storedVersions))) {
+			save();
+		}
+	}
+	
+	private static List<String> getVersionIDs(List<Release> versions) {
+		List<String> result = new ArrayList<>();
+		for(Release version : versions) {
+			result.add(version.getVersionID() + ";" + version.getVersionName() + ";" + version.getReleaseDate().toLocalDate());
+		}
+		
+		return result;
+	}
+	
+	private boolean load() {
+		File file = new File(storeFile);
+		if(!file.exists()) {
+			return false;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			//a store of another format or project is synced again from scratch
+			if(in.readInt() != FORMAT_VERSION || !in.readUTF().equals(projectName)) {
+				return false;
+			}
+			lastUpdate = in.readLong();
+			int versionsCount = in.readInt();
+			List<Release> storedVersions = new ArrayList<>(versionsCount);
+			for(int i = 0; i < versionsCount; i++) {
+				String id = in.readUTF();
+				String name = in.readUTF();
+				storedVersions.add(new Release(id, name, LocalDate.ofEpochDay(in.readLong()).atStartOfDay()));
+			}
+			int issuesCount = in.readInt();
+			for(int i = 0; i < issuesCount; i++) {
+				JiraIssue issue = JiraIssue.readRecord(in);
+				issues.put(issue.getKey(), issue);
+			}
+			versions = storedVersions;
+			return true;
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(IssueStore.class.getName());
+			logger.log(Level.WARNING, "Error reading issue store, syncing it again", e);
+			issues.clear();
+			lastUpdate = 0;
+			return false;
+		}
+	}
+	
+	private void save() {
+		//written under a temporary name and then renamed, a crash never leaves a partial store behind
+		File temporary = new File(storeFile + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(projectName);
+				out.writeLong(lastUpdate);
+				out.writeInt(versions.size());
+				for(Release version : versions) {
+					out.writeUTF(version.getVersionID());
+					out.writeUTF(version.getVersionName());
+					out.writeLong(version.getReleaseDate().toLocalDate().toEpochDay());
+				}
+				out.writeInt(issues.size());
+				for(JiraIssue issue : issues.values()) {
+					issue.write(out);
+				}
+			}
+			Files.move(temporary.toPath(), Paths.get(storeFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(IssueStore.class.getName());
+			logger.log(Level.SEVERE, "Error writing issue store", e);
+			temporary.delete();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Issue store: " + versions.size() + " versions, " + issues.size() + " bugs, " + synced + " synced from jira";
+	}
+	
+}
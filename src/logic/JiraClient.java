@@ -0,0 +1,197 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+public class JiraClient {
+	public static final String JIRA_API = "https://issues.apache.org/jira/rest/api/2/";
+	public static final int PAGE_SIZE = 1000; //issues asked for every search page, jira may return less
+	public static final int MAX_PARALLEL_PAGES = 4; //search pages requested at the same time
+	public static final Duration TIMEOUT = Duration.ofSeconds(60);
+	
+	//http(s) base of the rest api, or a file: directory of saved responses standing in for it
+	private final String baseUrl;
+	private final boolean standIn;
+	private final HttpClient httpClient;
+	private final Semaphore pagePermits;
+	
+	//bodies are parsed while they arrive, on threads of their own and not on the ones of the client
+	private final ExecutorService parsers;
+	
+	@FunctionalInterface
+	public interface JsonReader<T> {
+		//reads one json value, the parser is on its first token; null to leave an array element out
+		T read(JsonPullParser parser) throws IOException;
+	}
+	
+	public JiraClient() {
+		this(JIRA_API, MAX_PARALLEL_PAGES);
+	}
+	
+	public JiraClient(String baseUrl, int maxParallelPages) {
+		//one connection multiplexed over HTTP/2, the client falls back to HTTP/1.1 if the server does not support it
+		this.baseUrl = baseUrl;
+		this.standIn = baseUrl.startsWith("file:");
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(TIMEOUT)
+				.build();
+		this.pagePermits = new Semaphore(maxParallelPages);
+		this.parsers = Executors.newFixedThreadPool(maxParallelPages + 1, runnable -> {
+			Thread thread = new Thread(runnable, "jira-parser");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	public <T> List<T> getProjectVersions(String projectName, JsonReader<T> reader) throws IOException {
+		//only the versions array of the project is read, every other field is skipped
+		return JiraClient.join(getAsync("project/" + projectName.toUpperCase(), "", -1, parser -> {
+			Page<T> page = new Page<>();
+			parser.beginObject();
+			for(String name = parser.nextName(); name != null; name = parser.nextName()) {
+				if(name.equals("versions")) {
+					JiraClient.readArray(parser, reader, page.elements);
+				}
+				else {
+					parser.skipValue();
+				}
+			}
+			return page;
+		})).elements;
+	}
+	
+	public <T> List<T> search(String jql, String fields, JsonReader<T> reader) throws IOException {
+		//the first page tells the total, the other pages are requested together with fixed bounds
+		String query = "jql=" + jql + "&fields=" + fields;
+		Page<T> first = JiraClient.join(getAsync("search", query + "&maxResults=" + PAGE_SIZE, 0, parser -> JiraClient.readSearchPage(parser, reader)));
+		int pageSize = Math.max(1, first.maxResults);
+		
+		List<CompletableFuture<Page<T>>> pages = new ArrayList<>();
+		try {
+			for(int startAt = pageSize; startAt < first.total; startAt += pageSize) {
+				pagePermits.acquire();
+				CompletableFuture<Page<T>> page = getAsync("search", query + "&maxResults=" + pageSize, startAt, parser -> JiraClient.readSearchPage(parser, reader));
+				pages.add(page.whenComplete((result, e) -> pagePermits.release()));
+			}
+		} catch (InterruptedException e) {
+			pages.forEach(page -> page.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Jira search interrupted");
+		}
+		
+		//elements in startAt order, as the issues of a single sequential search
+		List<T> result = new ArrayList<>(first.elements);
+		for(CompletableFuture<Page<T>> page : pages) {
+			result.addAll(JiraClient.join(page).elements);
+		}
+		
+		return result;
+	}
+	
+	private <R> CompletableFuture<R> getAsync(String resource, String query, int startAt, JsonReader<R> bodyReader) {
+		if(standIn) {
+			//the query is ignored: resource.json, or resource-startAt.json for the pages of a search
+			Path file = Paths.get(URI.create(baseUrl)).resolve(resource + (startAt >= 0 ? "-" + startAt : "") + ".json");
+			return CompletableFuture.supplyAsync(() -> {
+				try (JsonPullParser parser = new JsonPullParser(new BufferedInputStream(Files.newInputStream(file)))) {
+					return bodyReader.read(parser);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, parsers);
+		}
+		
+		String parameters = query + (startAt >= 0 ? "&startAt=" + startAt : "");
+		String url = baseUrl + resource + (parameters.isEmpty() ? "" : "?" + parameters);
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.timeout(TIMEOUT)
+				.header("Accept", "application/json")
+				.GET()
+				.build();
+		
+		//the body is parsed from the byte stream, it is never held as a whole string or json tree
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+				.thenApplyAsync(response -> {
+					try (InputStream body = response.body(); JsonPullParser parser = new JsonPullParser(body)) {
+						if(response.statusCode() != 200) {
+							throw new IOException("Jira request failed with status " + response.statusCode() + ": " + url);
+						}
+						return bodyReader.read(parser);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, parsers);
+	}
+	
+	private static <T> Page<T> readSearchPage(JsonPullParser parser, JsonReader<T> reader) throws IOException {
+		Page<T> page = new Page<>();
+		parser.beginObject();
+		for(String name = parser.nextName(); name != null; name = parser.nextName()) {
+			if(name.equals("total")) {
+				page.total = parser.nextInt();
+			}
+			else if(name.equals("maxResults")) {
+				page.maxResults = parser.nextInt();
+			}
+			else if(name.equals("issues")) {
+				JiraClient.readArray(parser, reader, page.elements);
+			}
+			else {
+				parser.skipValue();
+			}
+		}
+		
+		return page;
+	}
+	
+	private static <T> void readArray(JsonPullParser parser, JsonReader<T> reader, List<T> elements) throws IOException {
+		parser.beginArray();
+		while(parser.hasNextElement()) {
+			T element = reader.read(parser);
+			if(element != null) {
+				elements.add(element);
+			}
+		}
+	}
+	
+	private static <T> T join(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			if(e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Error in Jira request", e.getCause());
+		}
+	}
+	
+	private static class Page<T> {
+		private int total;
+		private int maxResults;
+		private final List<T> elements = new ArrayList<>();
+	}
+	
+}
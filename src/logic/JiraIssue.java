@@ -0,0 +1,194 @@
+package logic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class JiraIssue {
+	public static final String FIELDS = "key,created,resolutiondate,versions,updated,status,resolution";
+	private static final DateTimeFormatter JIRA_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+	
+	private final String key;
+	private final String created;
+	private final String resolutionDate;
+	private final String affectedVersionID;
+	private final String status;
+	private final String resolution;
+	private final long updated;
+	
+	public JiraIssue(String key, String created, String resolutionDate, String affectedVersionID, String status, String resolution, long updated) {
+		//dates as returned by jira, affected version is the first one or null
+		this.key = key;
+		this.created = created;
+		this.resolutionDate = resolutionDate;
+		this.affectedVersionID = affectedVersionID;
+		this.status = status;
+		this.resolution = resolution;
+		this.updated = updated;
+	}
+	
+	public String getKey() {
+		return key;
+	}
+	
+	public String getCreated() {
+		return created;
+	}
+	
+	public String getResolutionDate() {
+		return resolutionDate;
+	}
+	
+	public String getAffectedVersionID() {
+		return affectedVersionID;
+	}
+	
+	public long getUpdated() {
+		//epoch milliseconds of the last update
+		return updated;
+	}
+	
+	public boolean isFixed() {
+		//the same filter of the search: closed or resolved, with resolution fixed
+		return ("Closed".equalsIgnoreCase(status) || "Resolved".equalsIgnoreCase(status))
+				&& "Fixed".equalsIgnoreCase(resolution) && created != null && resolutionDate != null;
+	}
+	
+	public static JiraIssue read(JsonPullParser parser) throws IOException {
+		//only the fields of the issue store are decoded, everything else is skipped
+		String key = null;
+		String created = null;
+		String resolutionDate = null;
+		String affectedVersionID = null;
+		String status = null;
+		String resolution = null;
+		long updated = 0;
+		
+		parser.beginObject();
+		for(String name = parser.nextName(); name != null; name = parser.nextName()) {
+			if(name.equals("key")) {
+				key = parser.nextString();
+			}
+			else if(name.equals("fields")) {
+				parser.beginObject();
+				for(String field = parser.nextName(); field != null; field = parser.nextName()) {
+					if(field.equals("created")) {
+						created = parser.nextString();
+					}
+					else if(field.equals("resolutiondate")) {
+						resolutionDate = parser.nextString();
+					}
+					else if(field.equals("updated")) {
+						String date = parser.nextString();
+						updated = date != null ? OffsetDateTime.parse(date, JIRA_DATE).toInstant().toEpochMilli() : 0;
+					}
+					else if(field.equals("versions")) {
+						affectedVersionID = JiraIssue.readFirst(parser, "id");
+					}
+					else if(field.equals("status") || field.equals("resolution")) {
+						String value = JiraIssue.readField(parser, "name");
+						if(field.equals("status")) {
+							status = value;
+						}
+						else {
+							resolution = value;
+						}
+					}
+					else {
+						parser.skipValue();
+					}
+				}
+			}
+			else {
+				parser.skipValue();
+			}
+		}
+		if(key == null) {
+			return null;
+		}
+		
+		return new JiraIssue(key, created, resolutionDate, affectedVersionID, status, resolution, updated);
+	}
+	
+	public void write(DataOutput out) throws IOException {
+		out.writeUTF(key);
+		JiraIssue.writeNullable(out, created);
+		JiraIssue.writeNullable(out, resolutionDate);
+		JiraIssue.writeNullable(out, affectedVersionID);
+		JiraIssue.writeNullable(out, status);
+		JiraIssue.writeNullable(out, resolution);
+		out.writeLong(updated);
+	}
+	
+	public static JiraIssue readRecord(DataInput in) throws IOException {
+		String key = in.readUTF();
+		String created = JiraIssue.readNullable(in);
+		String resolutionDate = JiraIssue.readNullable(in);
+		String affectedVersionID = JiraIssue.readNullable(in);
+		String status = JiraIssue.readNullable(in);
+		String resolution = JiraIssue.readNullable(in);
+		
+		return new JiraIssue(key, created, resolutionDate, affectedVersionID, status, resolution, in.readLong());
+	}
+	
+	static void writeNullable(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if(value != null) {
+			out.writeUTF(value);
+		}
+	}
+	
+	static String readNullable(DataInput in) throws IOException {
+		if(in.readBoolean()) {
+			return in.readUTF();
+		}
+		
+		return null;
+	}
+	
+	private static String readField(JsonPullParser parser, String name) throws IOException {
+		//a field of a nested object, null when the object is null
+		if(parser.peek() != JsonPullParser.Token.BEGIN_OBJECT) {
+			return parser.nextString();
+		}
+		
+		String result = null;
+		parser.beginObject();
+		for(String field = parser.nextName(); field != null; field = parser.nextName()) {
+			if(field.equals(name)) {
+				result = parser.nextString();
+			}
+			else {
+				parser.skipValue();
+			}
+		}
+		
+		return result;
+	}
+	
+	private static String readFirst(JsonPullParser parser, String name) throws IOException {
+		//a field of the first object of an array, the other objects are skipped
+		if(parser.peek() != JsonPullParser.Token.BEGIN_ARRAY) {
+			parser.skipValue();
+			return null;
+		}
+		
+		String result = null;
+		boolean first = true;
+		parser.beginArray();
+		while(parser.hasNextElement()) {
+			if(first) {
+				result = JiraIssue.readField(parser, name);
+				first = false;
+			}
+			else {
+				parser.skipValue();
+			}
+		}
+		
+		return result;
+	}
+	
+}
@@ -0,0 +1,344 @@
+package logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class JsonPullParser implements Closeable {
+	private static final int BUFFER_SIZE = 8192;
+	
+	public enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+	
+	private final InputStream in;
+	private final byte[] buffer;
+	private int position;
+	private int limit;
+	private long offset;
+	
+	//open containers, true for objects; a string is a name when the innermost object waits for one
+	private boolean[] objects;
+	private int depth;
+	private boolean nameNext;
+	
+	//text of the current name or scalar, decoded only when it is read
+	private final StringBuilder text;
+	private boolean skipping;
+	private Token peeked;
+	
+	public JsonPullParser(InputStream in) {
+		//the stream is read in blocks, only the names and values asked for become strings
+		this.in = in;
+		this.buffer = new byte[BUFFER_SIZE];
+		this.objects = new boolean[16];
+		this.text = new StringBuilder();
+	}
+	
+	public Token peek() throws IOException {
+		if(peeked == null) {
+			peeked = readToken();
+		}
+		
+		return peeked;
+	}
+	
+	public Token next() throws IOException {
+		Token result = peek();
+		peeked = null;
+		return result;
+	}
+	
+	public String getText() {
+		return text.toString();
+	}
+	
+	public void beginObject() throws IOException {
+		expect(Token.BEGIN_OBJECT);
+	}
+	
+	public void beginArray() throws IOException {
+		expect(Token.BEGIN_ARRAY);
+	}
+	
+	public String nextName() throws IOException {
+		//name of the next field of the current object, null after its end
+		Token token = next();
+		if(token == Token.END_OBJECT) {
+			return null;
+		}
+		if(token != Token.NAME) {
+			throw syntaxError("expected a field name, found " + token);
+		}
+		
+		return getText();
+	}
+	
+	public boolean hasNextElement() throws IOException {
+		//false after the end of the current array
+		if(peek() == Token.END_ARRAY) {
+			next();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	public String nextString() throws IOException {
+		//text of the next scalar, null for null and for objects or arrays, which are skipped
+		Token token = peek();
+		if(token == Token.STRING || token == Token.NUMBER || token == Token.BOOLEAN) {
+			next();
+			return getText();
+		}
+		
+		skipValue();
+		return null;
+	}
+	
+	public int nextInt() throws IOException {
+		String value = nextString();
+		if(value == null) {
+			throw syntaxError("expected a number");
+		}
+		
+		return Integer.parseInt(value);
+	}
+	
+	public void skipValue() throws IOException {
+		//the skipped names and strings are scanned but never decoded
+		skipping = true;
+		try {
+			int open = 0;
+			do {
+				Token token = next();
+				if(token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+					open++;
+				}
+				else if(token == Token.END_OBJECT || token == Token.END_ARRAY) {
+					open--;
+				}
+				else if(token == Token.END_DOCUMENT) {
+					throw syntaxError("unexpected end of document");
+				}
+			} while(open > 0);
+		} finally {
+			skipping = false;
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	private void expect(Token expected) throws IOException {
+		Token token = next();
+		if(token != expected) {
+			throw syntaxError("expected " + expected + ", found " + token);
+		}
+	}
+	
+	private Token readToken() throws IOException {
+		int c = nextNonSeparator();
+		switch(c) {
+			case -1:
+				return Token.END_DOCUMENT;
+			case '{':
+				push(true);
+				return Token.BEGIN_OBJECT;
+			case '[':
+				push(false);
+				return Token.BEGIN_ARRAY;
+			case '}':
+			case ']':
+				if(depth == 0 || objects[depth - 1] != (c == '}')) {
+					throw syntaxError("unbalanced '" + (char) c + "'");
+				}
+				depth--;
+				valueRead();
+				return c == '}' ? Token.END_OBJECT : Token.END_ARRAY;
+			case '"':
+				readString();
+				if(nameNext) {
+					nameNext = false;
+					return Token.NAME;
+				}
+				valueRead();
+				return Token.STRING;
+			default:
+				Token result = readLiteral(c);
+				valueRead();
+				return result;
+		}
+	}
+	
+	private void push(boolean object) {
+		if(depth == objects.length) {
+			boolean[] larger = new boolean[depth * 2];
+			System.arraycopy(objects, 0, larger, 0, depth);
+			objects = larger;
+		}
+		objects[depth++] = object;
+		nameNext = object;
+	}
+	
+	private void valueRead() {
+		//after a value, an object waits for the next name
+		nameNext = depth > 0 && objects[depth - 1];
+	}
+	
+	private int nextNonSeparator() throws IOException {
+		int c = read();
+		while(c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ':') {
+			c = read();
+		}
+		
+		return c;
+	}
+	
+	private void readString() throws IOException {
+		text.setLength(0);
+		int c = read();
+		while(c != '"') {
+			if(c == -1) {
+				throw syntaxError("unterminated string");
+			}
+			if(c == '\\') {
+				c = readEscape();
+				if(!skipping) {
+					text.append((char) c);
+				}
+			}
+			else if(c < 0x80) {
+				if(!skipping) {
+					text.append((char) c);
+				}
+			}
+			else {
+				int codePoint = readUtf8(c);
+				if(!skipping) {
+					text.appendCodePoint(codePoint);
+				}
+			}
+			c = read();
+		}
+	}
+	
+	private int readEscape() throws IOException {
+		int c = read();
+		switch(c) {
+			case '"':
+			case '\\':
+			case '/':
+				return c;
+			case 'b':
+				return '\b';
+			case 'f':
+				return '\f';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case 'u':
+				//surrogate pairs arrive as two escapes, each one is appended as a char
+				int result = 0;
+				for(int i = 0; i < 4; i++) {
+					result = result * 16 + Character.digit(read(), 16);
+				}
+				if(result < 0) {
+					throw syntaxError("invalid unicode escape");
+				}
+				return result;
+			default:
+				throw syntaxError("invalid escape");
+		}
+	}
+	
+	private int readUtf8(int lead) throws IOException {
+		int continuations;
+		int result;
+		if((lead & 0xE0) == 0xC0) {
+			continuations = 1;
+			result = lead & 0x1F;
+		}
+		else if((lead & 0xF0) == 0xE0) {
+			continuations = 2;
+			result = lead & 0x0F;
+		}
+		else if((lead & 0xF8) == 0xF0) {
+			continuations = 3;
+			result = lead & 0x07;
+		}
+		else {
+			throw syntaxError("invalid UTF-8 byte");
+		}
+		
+		for(int i = 0; i < continuations; i++) {
+			int c = read();
+			if((c & 0xC0) != 0x80) {
+				throw syntaxError("invalid UTF-8 sequence");
+			}
+			result = (result << 6) | (c & 0x3F);
+		}
+		
+		return result;
+	}
+	
+	private Token readLiteral(int first) throws IOException {
+		//numbers, true, false and null run until the next separator
+		text.setLength(0);
+		text.append((char) first);
+		while(true) {
+			int c = peekByte();
+			if(c == -1 || c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+				break;
+			}
+			text.append((char) read());
+		}
+		
+		String literal = getText();
+		if(literal.equals("null")) {
+			return Token.NULL;
+		}
+		if(literal.equals("true") || literal.equals("false")) {
+			return Token.BOOLEAN;
+		}
+		if(first == '-' || (first >= '0' && first <= '9')) {
+			return Token.NUMBER;
+		}
+		
+		throw syntaxError("unexpected '" + literal + "'");
+	}
+	
+	private int read() throws IOException {
+		if(position == limit && !fill()) {
+			return -1;
+		}
+		
+		return buffer[position++] & 0xFF;
+	}
+	
+	private int peekByte() throws IOException {
+		if(position == limit && !fill()) {
+			return -1;
+		}
+		
+		return buffer[position] & 0xFF;
+	}
+	
+	private boolean fill() throws IOException {
+		offset += limit;
+		position = 0;
+		limit = Math.max(0, in.read(buffer, 0, buffer.length));
+		
+		return limit > 0;
+	}
+	
+	private IOException syntaxError(String message) {
+		return new IOException("Malformed JSON at byte " + (offset + position) + ": " + message);
+	}
+	
+}
@@ -0,0 +1,124 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class MetricsCache {
+	//content metrics stored for every blob
+	public static final int SIZE = 0;
+	public static final int METRICS = 1;
+	
+	private static final int FORMAT_VERSION = 1;
+	
+	private final String cacheFile;
+	private final Map<String, int[]> entries;
+	private long hits;
+	private long misses;
+	
+	public MetricsCache(String cacheFile, int maxEntries) {
+		this.cacheFile = cacheFile;
+		this.hits = 0;
+		this.misses = 0;
+		
+		//access ordered map, the least recently used blob is evicted when the bound is reached
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+	
+	public synchronized int[] get(String blobID) {
+		int[] metrics = entries.get(blobID);
+		if(metrics == null) {
+			misses++;
+		}
+		else {
+			hits++;
+		}
+		
+		return metrics;
+	}
+	
+	public synchronized void put(String blobID, int[] metrics) {
+		entries.put(blobID, metrics);
+	}
+	
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	public synchronized void load() {
+		File file = new File(cacheFile);
+		if(!file.exists()) {
+			return;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			//a cache written with a different set of metrics is discarded
+			if(in.readInt() != FORMAT_VERSION || in.readInt() != METRICS) {
+				return;
+			}
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				String blobID = in.readUTF();
+				int[] metrics = new int[METRICS];
+				for(int j = 0; j < METRICS; j++) {
+					metrics[j] = in.readInt();
+				}
+				entries.put(blobID, metrics);
+			}
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(MetricsCache.class.getName());
+			logger.log(Level.WARNING, "Error reading metrics cache, starting with an empty one", e);
+			entries.clear();
+		}
+	}
+	
+	public synchronized void save() {
+		//entries are written from the least recently used, so that reloading keeps the same eviction order
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(METRICS);
+			out.writeInt(entries.size());
+			for(Map.Entry<String, int[]> entry : entries.entrySet()) {
+				out.writeUTF(entry.getKey());
+				for(int value : entry.getValue()) {
+					out.writeInt(value);
+				}
+			}
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(MetricsCache.class.getName());
+			logger.log(Level.SEVERE, "Error writing metrics cache", e);
+		}
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "Metrics cache: " + entries.size() + " blobs, " + hits + " hits, " + misses + " misses";
+	}
+	
+}
@@ -0,0 +1,339 @@
+package logic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MetricsTable {
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int FORMAT_VERSION = 1;
+	
+	public enum Metric {
+		SIZE("Size", false),
+		LOC_TOUCHED("LOC_touched", false),
+		LOC_ADDED("LOC_added", false),
+		MAX_LOC_ADDED("MAX_LOC_added", false),
+		AVG_LOC_ADDED("AVG_LOC_added", true),
+		CHURN("Churn", false),
+		MAX_CHURN("MAX_Churn", false),
+		AVG_CHURN("AVG_Churn", true),
+		NR("NR", false),
+		NF("NF", false);
+		
+		private String header;
+		private boolean decimal;
+		
+		Metric(String header, boolean decimal) {
+			this.header = header;
+			this.decimal = decimal;
+		}
+		
+		public String getHeader() {
+			return this.header;
+		}
+		
+		public boolean isDecimal() {
+			return this.decimal;
+		}
+	
+	}
+	
+	private int rows;
+	
+	//release index and dictionary encoded path and blob of every row
+	private int[] versions;
+	private int[] pathIDs;
+	private int[] blobIDs;
+	private final Dictionary paths;
+	private final Dictionary blobs;
+	
+	//one primitive column for each metric, int or double according to the metric
+	private final int[][] intColumns;
+	private final double[][] doubleColumns;
+	private final BitSet bugged;
+	
+	public MetricsTable() {
+		this(INITIAL_CAPACITY);
+	}
+	
+	public MetricsTable(int capacity) {
+		int initialCapacity = Math.max(capacity, 1);
+		this.rows = 0;
+		this.versions = new int[initialCapacity];
+		this.pathIDs = new int[initialCapacity];
+		this.blobIDs = new int[initialCapacity];
+		this.paths = new Dictionary();
+		this.blobs = new Dictionary();
+		this.intColumns = new int[Metric.values().length][];
+		this.doubleColumns = new double[Metric.values().length][];
+		this.bugged = new BitSet();
+		
+		for(Metric m : Metric.values()) {
+			if(m.isDecimal()) {
+				doubleColumns[m.ordinal()] = new double[initialCapacity];
+			}
+			else {
+				intColumns[m.ordinal()] = new int[initialCapacity];
+			}
+		}
+	}
+	
+	public int size() {
+		return rows;
+	}
+	
+	public int addRow(String gitPath, int version) {
+		//rows must be added in release order
+		ensureCapacity(rows + 1);
+		versions[rows] = version;
+		pathIDs[rows] = paths.encode(gitPath);
+		blobIDs[rows] = -1;
+		
+		return rows++;
+	}
+	
+	public void append(MetricsTable other) {
+		ensureCapacity(rows + other.rows);
+		for(int i = 0; i < other.rows; i++) {
+			int row = rows + i;
+			versions[row] = other.versions[i];
+			pathIDs[row] = paths.encode(other.paths.decode(other.pathIDs[i]));
+			blobIDs[row] = other.blobIDs[i] < 0 ? -1 : blobs.encode(other.blobs.decode(other.blobIDs[i]));
+			bugged.set(row, other.bugged.get(i));
+		}
+		for(Metric m : Metric.values()) {
+			if(m.isDecimal()) {
+				System.arraycopy(other.doubleColumns[m.ordinal()], 0, doubleColumns[m.ordinal()], rows, other.rows);
+			}
+			else {
+				System.arraycopy(other.intColumns[m.ordinal()], 0, intColumns[m.ordinal()], rows, other.rows);
+			}
+		}
+		rows += other.rows;
+	}
+	
+	public int getVersion(int row) {
+		return versions[row];
+	}
+	
+	public String getPath(int row) {
+		return paths.decode(pathIDs[row]);
+	}
+	
+	public int getPathID(int row) {
+		return pathIDs[row];
+	}
+	
+	public int getPathsNumber() {
+		return paths.size();
+	}
+	
+	public String getBlobID(int row) {
+		return blobIDs[row] < 0 ? null : blobs.decode(blobIDs[row]);
+	}
+	
+	public void setBlobID(int row, String blobID) {
+		blobIDs[row] = blobs.encode(blobID);
+	}
+	
+	public int getInt(Metric m, int row) {
+		return intColumns[m.ordinal()][row];
+	}
+	
+	public void setInt(Metric m, int row, int value) {
+		intColumns[m.ordinal()][row] = value;
+	}
+	
+	public double getDouble(Metric m, int row) {
+		return doubleColumns[m.ordinal()][row];
+	}
+	
+	public void setDouble(Metric m, int row, double value) {
+		doubleColumns[m.ordinal()][row] = value;
+	}
+	
+	public double getValue(Metric m, int row) {
+		//any metric as a number, whatever its column type
+		if(m.isDecimal()) {
+			return doubleColumns[m.ordinal()][row];
+		}
+		return intColumns[m.ordinal()][row];
+	}
+	
+	public boolean isBugged(int row) {
+		return bugged.get(row);
+	}
+	
+	public void setBugged(int row, boolean value) {
+		bugged.set(row, value);
+	}
+	
+	public int getFirstRow(int version) {
+		//first row of the version, rows are sorted by version
+		int low = 0;
+		int high = rows;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(versions[mid] < version) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		
+		return low;
+	}
+	
+	public int getEndRow(int version) {
+		//first row after the version
+		return getFirstRow(version + 1);
+	}
+	
+	public FileMetrics getRow(int row) {
+		//row view with the same fields of the old per file objects
+		FileMetrics fm = new FileMetrics(getPath(row), versions[row]);
+		fm.setBlobID(getBlobID(row));
+		fm.setSize(getInt(Metric.SIZE, row));
+		fm.setLOCtouched(getInt(Metric.LOC_TOUCHED, row));
+		fm.setLOCadded(getInt(Metric.LOC_ADDED, row));
+		fm.setMAXLOCadded(getInt(Metric.MAX_LOC_ADDED, row));
+		fm.setAVGLOCadded(getDouble(Metric.AVG_LOC_ADDED, row));
+		fm.setChurn(getInt(Metric.CHURN, row));
+		fm.setMAXchurn(getInt(Metric.MAX_CHURN, row));
+		fm.setAVGchurn(getDouble(Metric.AVG_CHURN, row));
+		fm.setNR(getInt(Metric.NR, row));
+		fm.setNF(getInt(Metric.NF, row));
+		fm.setBugged(isBugged(row));
+		
+		return fm;
+	}
+	
+	public List<FileMetrics> getRows(int version) {
+		List<FileMetrics> result = new ArrayList<>();
+		for(int row = getFirstRow(version); row < getEndRow(version); row++) {
+			result.add(getRow(row));
+		}
+		
+		return result;
+	}
+	
+	public void write(DataOutput out) throws IOException {
+		//the columns as they are, paths and blobs as their dictionaries
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(rows);
+		paths.write(out);
+		blobs.write(out);
+		for(int row = 0; row < rows; row++) {
+			out.writeInt(versions[row]);
+			out.writeInt(pathIDs[row]);
+			out.writeInt(blobIDs[row]);
+			out.writeBoolean(bugged.get(row));
+		}
+		for(Metric m : Metric.values()) {
+			for(int row = 0; row < rows; row++) {
+				if(m.isDecimal()) {
+					out.writeDouble(doubleColumns[m.ordinal()][row]);
+				}
+				else {
+					out.writeInt(intColumns[m.ordinal()][row]);
+				}
+			}
+		}
+	}
+	
+	public static MetricsTable read(DataInput in) throws IOException {
+		if(in.readInt() != FORMAT_VERSION) {
+			throw new IOException("Unsupported metrics table format");
+		}
+		
+		int count = in.readInt();
+		MetricsTable result = new MetricsTable(count);
+		result.paths.read(in);
+		result.blobs.read(in);
+		for(int row = 0; row < count; row++) {
+			result.versions[row] = in.readInt();
+			result.pathIDs[row] = in.readInt();
+			result.blobIDs[row] = in.readInt();
+			result.bugged.set(row, in.readBoolean());
+		}
+		for(Metric m : Metric.values()) {
+			for(int row = 0; row < count; row++) {
+				if(m.isDecimal()) {
+					result.doubleColumns[m.ordinal()][row] = in.readDouble();
+				}
+				else {
+					result.intColumns[m.ordinal()][row] = in.readInt();
+				}
+			}
+		}
+		result.rows = count;
+		
+		return result;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if(capacity <= versions.length) {
+			return;
+		}
+		
+		int newCapacity = Math.max(capacity, versions.length * 2);
+		versions = Arrays.copyOf(versions, newCapacity);
+		pathIDs = Arrays.copyOf(pathIDs, newCapacity);
+		blobIDs = Arrays.copyOf(blobIDs, newCapacity);
+		for(Metric m : Metric.values()) {
+			if(m.isDecimal()) {
+				doubleColumns[m.ordinal()] = Arrays.copyOf(doubleColumns[m.ordinal()], newCapacity);
+			}
+			else {
+				intColumns[m.ordinal()] = Arrays.copyOf(intColumns[m.ordinal()], newCapacity);
+			}
+		}
+	}
+	
+	private static class Dictionary {
+		//every distinct string is stored once, rows keep its code
+		private final List<String> values = new ArrayList<>();
+		private final Map<String, Integer> codes = new HashMap<>();
+		
+		private int encode(String value) {
+			Integer code = codes.get(value);
+			if(code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			
+			return code;
+		}
+		
+		private String decode(int code) {
+			return values.get(code);
+		}
+		
+		private int size() {
+			return values.size();
+		}
+		
+		private void write(DataOutput out) throws IOException {
+			out.writeInt(values.size());
+			for(String value : values) {
+				out.writeUTF(value);
+			}
+		}
+		
+		private void read(DataInput in) throws IOException {
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				encode(in.readUTF());
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,210 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.lazy.IBk;
+import weka.classifiers.meta.CostSensitiveClassifier;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+import weka.filters.Filter;
+
+public class ModelStore {
+	private static final String EXTENSION = ".model";
+	
+	private final File directory;
+	private final AtomicInteger loaded;
+	private final AtomicInteger built;
+	private final AtomicInteger evicted;
+	
+	//keys loaded or written by this run, the other files are evicted after a complete run
+	private final Set<String> used;
+	
+	//set when a cell is answered without asking for its models, the used keys are then not all known
+	private volatile boolean replayed;
+	
+	public ModelStore(String directory) {
+		//one file for every trained classifier or filter, named after the hash of its configuration and training data
+		//lazy learners are left out, their model is the training set itself
+		this.directory = new File(directory);
+		this.directory.mkdirs();
+		this.loaded = new AtomicInteger();
+		this.built = new AtomicInteger();
+		this.evicted = new AtomicInteger();
+		this.used = ConcurrentHashMap.newKeySet();
+	}
+	
+	public Classifier getOrBuild(Classifier classifier, Instances training) throws Exception {
+		if(ModelStore.isLazy(classifier)) {
+			//the model of a lazy learner is its training set, storing it would only copy the data
+			classifier.buildClassifier(training);
+			return classifier;
+		}
+		
+		String key = ModelStore.getKey(classifier, training);
+		used.add(key);
+		Object stored = load(key);
+		if(stored instanceof Classifier) {
+			loaded.incrementAndGet();
+			return (Classifier) stored;
+		}
+		
+		classifier.buildClassifier(training);
+		save(key, classifier);
+		built.incrementAndGet();
+		return classifier;
+	}
+	
+	public Filter getOrBuild(Filter filter, Instances input) throws Exception {
+		//the filter is returned after its first batch, it applies the same transformation to every other set
+		String key = ModelStore.getKey(filter, input);
+		used.add(key);
+		Object stored = load(key);
+		if(stored instanceof Filter) {
+			loaded.incrementAndGet();
+			return (Filter) stored;
+		}
+		
+		filter.setInputFormat(input);
+		Filter.useFilter(input, filter);
+		save(key, filter);
+		built.incrementAndGet();
+		return filter;
+	}
+	
+	public static String getKey(Object model, Instances training) throws NoSuchAlgorithmException {
+		//balancing and feature selection are part of the training data, the options describe everything else
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		digest.update(ModelStore.getConfiguration(model).getBytes(StandardCharsets.UTF_8));
+		
+		//the relation name is left out, the same rows give the same model whatever the set is called
+		for(int a = 0; a < training.numAttributes(); a++) {
+			digest.update(training.attribute(a).toString().getBytes(StandardCharsets.UTF_8));
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * (training.numAttributes() + 1) + Integer.BYTES);
+		buffer.putInt(training.classIndex());
+		digest.update(buffer.array(), 0, Integer.BYTES);
+		for(Instance instance : training) {
+			buffer.clear();
+			buffer.putDouble(instance.weight());
+			for(int a = 0; a < training.numAttributes(); a++) {
+				buffer.putDouble(instance.value(a));
+			}
+			digest.update(buffer.array(), 0, buffer.position());
+		}
+		
+		StringBuilder result = new StringBuilder();
+		for(byte b : digest.digest()) {
+			result.append(String.format("%02x", b));
+		}
+		
+		return result.toString();
+	}
+	
+	public void markReplayed() {
+		//a cell taken from the prediction store does not tell which models it would need
+		replayed = true;
+	}
+	
+	public int evictUnused() {
+		//to be called after a complete walk-forward: models of older data or configurations are never asked for again
+		if(replayed || used.isEmpty()) {
+			return 0;
+		}
+		
+		File[] files = directory.listFiles();
+		if(files == null) {
+			return 0;
+		}
+		int result = 0;
+		for(File file : files) {
+			String name = file.getName();
+			boolean unused = name.endsWith(EXTENSION) && !used.contains(name.substring(0, name.length() - EXTENSION.length()));
+			//temporary files left by a crash are removed too
+			if((unused || name.endsWith(".tmp")) && file.delete()) {
+				result++;
+			}
+		}
+		evicted.addAndGet(result);
+		
+		return result;
+	}
+	
+	private static boolean isLazy(Classifier classifier) {
+		if(classifier instanceof CostSensitiveClassifier) {
+			return ModelStore.isLazy(((CostSensitiveClassifier) classifier).getClassifier());
+		}
+		
+		return classifier instanceof IBk;
+	}
+	
+	static String getConfiguration(Object model) {
+		//class and options of a classifier or filter
+		String result = model.getClass().getName();
+		if(model instanceof OptionHandler) {
+			result += " " + Utils.joinOptions(((OptionHandler) model).getOptions());
+		}
+		
+		return result;
+	}
+	
+	private Object load(String key) {
+		File file = new File(directory, key + EXTENSION);
+		if(!file.exists()) {
+			return null;
+		}
+		
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+			return SerializationHelper.read(in);
+		
+		} catch (Exception e) {
+			//a model written by another weka version is trained again
+			Logger logger = Logger.getLogger(ModelStore.class.getName());
+			logger.log(Level.WARNING, "Error reading stored model, it will be trained again", e);
+			return null;
+		}
+	}
+	
+	private void save(String key, Object model) {
+		//written under a temporary name and then renamed, a crash never leaves a partial model behind
+		File file = new File(directory, key + EXTENSION);
+		File temporary = new File(directory, key + EXTENSION + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary))) {
+				SerializationHelper.write(out, model);
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		} catch (Exception e) {
+			Logger logger = Logger.getLogger(ModelStore.class.getName());
+			logger.log(Level.SEVERE, "Error writing stored model", e);
+			temporary.delete();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Model store: " + loaded.get() + " models loaded, " + built.get() + " trained, " + evicted.get() + " evicted";
+	}
+	
+}
@@ -0,0 +1,84 @@
+package logic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+public class Pipeline {
+	private static final Logger logger = Logger.getLogger(Pipeline.class.getName());
+	
+	private final String name;
+	
+	//stages by name, in the order they were added
+	private final Map<String, Stage> stages;
+	
+	public Pipeline(String name) {
+		this.name = name;
+		this.stages = new LinkedHashMap<>();
+	}
+	
+	public Pipeline add(Stage stage) {
+		if(stages.putIfAbsent(stage.getName(), stage) != null) {
+			throw new IllegalArgumentException("Duplicate stage " + stage.getName() + " in pipeline " + name);
+		}
+		return this;
+	}
+	
+	public List<Stage> getOrder() {
+		//every stage after its dependencies, otherwise in the order they were added
+		List<Stage> result = new ArrayList<>();
+		Set<String> done = new HashSet<>();
+		Set<String> visiting = new HashSet<>();
+		for(Stage stage : stages.values()) {
+			visit(stage, done, visiting, result);
+		}
+		
+		return result;
+	}
+	
+	private void visit(Stage stage, Set<String> done, Set<String> visiting, List<Stage> result) {
+		if(done.contains(stage.getName())) {
+			return;
+		}
+		if(!visiting.add(stage.getName())) {
+			throw new IllegalStateException("Cycle through stage " + stage.getName() + " in pipeline " + name);
+		}
+		
+		for(String dependency : stage.getDependencies()) {
+			Stage dependencyStage = stages.get(dependency);
+			if(dependencyStage == null) {
+				throw new IllegalStateException("Unknown stage " + dependency + " required by " + stage.getName() + " in pipeline " + name);
+			}
+			visit(dependencyStage, done, visiting, result);
+		}
+		
+		visiting.remove(stage.getName());
+		done.add(stage.getName());
+		result.add(stage);
+	}
+	
+	public void run() throws IOException {
+		//a stage is skipped when its outputs are up to date and no stage before it changed its own outputs
+		Set<String> changed = new HashSet<>();
+		for(Stage stage : getOrder()) {
+			boolean dependencyChanged = stage.getDependencies().stream().anyMatch(changed::contains);
+			if(!dependencyChanged && stage.isUpToDate() && stage.restore()) {
+				logger.info(() -> name + ": " + stage.getName() + " up to date");
+				continue;
+			}
+			
+			long start = System.nanoTime();
+			//a stage run after a change passes it on, also when it keeps its state in memory
+			if(stage.run() || dependencyChanged) {
+				changed.add(stage.getName());
+			}
+			logger.info(() -> String.format("%s: %s done in %.1f s", name, stage.getName(), (System.nanoTime() - start) / 1e9));
+		}
+	}
+	
+}
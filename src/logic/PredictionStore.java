@@ -0,0 +1,222 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import logic.ExperimentGrid.Experiment;
+
+public class PredictionStore {
+	private static final int FORMAT_VERSION = 2;
+	private static final String JOURNAL = ".journal";
+	
+	private final String storeFile;
+	private final long fingerprint;
+	
+	//(release, experiment) -> predictions of its model on the test set
+	private final Map<String, Predictions> entries;
+	
+	//keys put since the last checkpoint, appended to the journal at the next one
+	private final Queue<String> pending;
+	private final Object journalLock;
+	
+	public PredictionStore(String storeFile, long fingerprint) {
+		//the fingerprint identifies the datasets the predictions were made on
+		this.storeFile = storeFile;
+		this.fingerprint = fingerprint;
+		this.entries = new ConcurrentHashMap<>();
+		this.pending = new ConcurrentLinkedQueue<>();
+		this.journalLock = new Object();
+	}
+	
+	public static String getKey(int release, Experiment experiment) {
+		//the names and the configuration behind them, predictions of another classifier setup or preprocessing are not reused
+		return release + ";" + experiment.getClassifier().name() + ";" + experiment.getBalancing().name() + ";"
+				+ experiment.getFeatureSelection().name() + ";" + experiment.getSensitivity().name() + ";" + experiment.getConfiguration();
+	}
+	
+	public Predictions get(String key) {
+		return entries.get(key);
+	}
+	
+	public void put(String key, Predictions predictions) {
+		entries.put(key, predictions);
+		pending.add(key);
+	}
+	
+	public int size() {
+		return entries.size();
+	}
+	
+	public synchronized void load() {
+		//the last snapshot and then the predictions appended after it
+		loadSnapshot();
+		if(loadJournal()) {
+			//folded into a new snapshot once, a record cut by a crash must not stay in front of the next ones
+			save();
+		}
+	}
+	
+	private void loadSnapshot() {
+		File file = new File(storeFile);
+		if(!file.exists()) {
+			return;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			//predictions made on different datasets are discarded
+			if(in.readInt() != FORMAT_VERSION || in.readLong() != fingerprint) {
+				return;
+			}
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				entries.put(key, PredictionStore.readPredictions(in));
+			}
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(PredictionStore.class.getName());
+			logger.log(Level.WARNING, "Error reading prediction store, starting with an empty one", e);
+			entries.clear();
+		}
+	}
+	
+	private boolean loadJournal() {
+		File file = new File(storeFile + JOURNAL);
+		if(!file.exists()) {
+			return false;
+		}
+		
+		boolean valid = false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			valid = in.readInt() == FORMAT_VERSION && in.readLong() == fingerprint;
+			while(valid) {
+				//a record cut by a crash ends the journal, the ones before it are kept
+				String key = in.readUTF();
+				entries.put(key, PredictionStore.readPredictions(in));
+			}
+		
+		} catch (EOFException e) {
+			//end of the journal
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(PredictionStore.class.getName());
+			logger.log(Level.WARNING, "Error reading prediction journal, the predictions read so far are kept", e);
+		}
+		if(!valid) {
+			//a journal of other datasets is started again at the first checkpoint
+			file.delete();
+		}
+		
+		return valid;
+	}
+	
+	public void checkpoint() {
+		//appends only the predictions added since the last checkpoint, called by the cells as every release is done
+		synchronized(journalLock) {
+			List<String> keys = new ArrayList<>();
+			for(String key = pending.poll(); key != null; key = pending.poll()) {
+				keys.add(key);
+			}
+			if(keys.isEmpty()) {
+				return;
+			}
+			
+			File file = new File(storeFile + JOURNAL);
+			boolean header = !file.exists();
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+				if(header) {
+					out.writeInt(FORMAT_VERSION);
+					out.writeLong(fingerprint);
+				}
+				for(String key : keys) {
+					out.writeUTF(key);
+					PredictionStore.writePredictions(out, entries.get(key));
+				}
+			
+			} catch (IOException e) {
+				Logger logger = Logger.getLogger(PredictionStore.class.getName());
+				logger.log(Level.SEVERE, "Error writing prediction journal", e);
+			}
+		}
+	}
+	
+	public synchronized void save() {
+		//the whole store under a temporary name and then renamed, the journal is part of it afterwards
+		synchronized(journalLock) {
+			List<Map.Entry<String, Predictions>> snapshot = new ArrayList<>(entries.entrySet());
+			File temporary = new File(storeFile + ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+					out.writeInt(FORMAT_VERSION);
+					out.writeLong(fingerprint);
+					out.writeInt(snapshot.size());
+					for(Map.Entry<String, Predictions> entry : snapshot) {
+						out.writeUTF(entry.getKey());
+						PredictionStore.writePredictions(out, entry.getValue());
+					}
+				}
+				Files.move(temporary.toPath(), Paths.get(storeFile), StandardCopyOption.REPLACE_EXISTING);
+				pending.clear();
+				Files.deleteIfExists(Paths.get(storeFile + JOURNAL));
+			
+			} catch (IOException e) {
+				Logger logger = Logger.getLogger(PredictionStore.class.getName());
+				logger.log(Level.SEVERE, "Error writing prediction store", e);
+				temporary.delete();
+			}
+		}
+	}
+	
+	private static Predictions readPredictions(DataInputStream in) throws IOException {
+		int numClasses = in.readInt();
+		int size = in.readInt();
+		int[] ids = new int[size];
+		int[] actual = new int[size];
+		double[] distributions = new double[size * numClasses];
+		for(int j = 0; j < size; j++) {
+			ids[j] = in.readInt();
+			actual[j] = in.readInt();
+			for(int c = 0; c < numClasses; c++) {
+				distributions[j * numClasses + c] = in.readDouble();
+			}
+		}
+		
+		return new Predictions(numClasses, ids, actual, distributions);
+	}
+	
+	private static void writePredictions(DataOutputStream out, Predictions predictions) throws IOException {
+		double[] distributions = predictions.getDistributions();
+		out.writeInt(predictions.getNumClasses());
+		out.writeInt(predictions.size());
+		for(int j = 0; j < predictions.size(); j++) {
+			out.writeInt(predictions.getId(j));
+			out.writeInt(predictions.getActual(j));
+			for(int c = 0; c < predictions.getNumClasses(); c++) {
+				out.writeDouble(distributions[j * predictions.getNumClasses() + c]);
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Prediction store: " + entries.size() + " models";
+	}
+	
+}
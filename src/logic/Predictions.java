@@ -0,0 +1,233 @@
+package logic;
+
+import java.util.Arrays;
+
+import weka.core.Instances;
+
+public class Predictions {
+	private final int numClasses;
+	
+	//one entry for every test instance: its index in the test set, its real class and the predicted distribution
+	private final int[] ids;
+	private final int[] actual;
+	private final double[] distributions;
+	
+	//confusion matrix [actual][predicted], as in Evaluation unclassified instances are left out of it
+	private final double[][] confusion;
+	private final double correct;
+	
+	public Predictions(int numClasses, int[] ids, int[] actual, double[] distributions) {
+		this.numClasses = numClasses;
+		this.ids = ids;
+		this.actual = actual;
+		this.distributions = distributions;
+		this.confusion = new double[numClasses][numClasses];
+		
+		double right = 0;
+		for(int i = 0; i < ids.length; i++) {
+			int predicted = getPredicted(i);
+			if(predicted >= 0) {
+				confusion[actual[i]][predicted]++;
+				if(predicted == actual[i]) {
+					right++;
+				}
+			}
+		}
+		this.correct = right;
+	}
+	
+	public static Predictions of(Instances test, double[][] predicted) {
+		int numClasses = test.numClasses();
+		int[] ids = new int[predicted.length];
+		int[] actual = new int[predicted.length];
+		double[] distributions = new double[predicted.length * numClasses];
+		for(int i = 0; i < predicted.length; i++) {
+			ids[i] = i;
+			actual[i] = (int) test.instance(i).classValue();
+			System.arraycopy(predicted[i], 0, distributions, i * numClasses, numClasses);
+		}
+		
+		return new Predictions(numClasses, ids, actual, distributions);
+	}
+	
+	public int size() {
+		return ids.length;
+	}
+	
+	public int getNumClasses() {
+		return numClasses;
+	}
+	
+	public int getId(int i) {
+		return ids[i];
+	}
+	
+	public int getActual(int i) {
+		return actual[i];
+	}
+	
+	public double getProbability(int i, int classIndex) {
+		return distributions[i * numClasses + classIndex];
+	}
+	
+	public int getPredicted(int i) {
+		//the first class with the highest probability as in Evaluation, -1 if the model gave no prediction
+		int offset = i * numClasses;
+		int result = 0;
+		for(int c = 1; c < numClasses; c++) {
+			if(distributions[offset + c] > distributions[offset + result]) {
+				result = c;
+			}
+		}
+		
+		return distributions[offset + result] > 0 ? result : -1;
+	}
+	
+	public double numTruePositives(int classIndex) {
+		return confusion[classIndex][classIndex];
+	}
+	
+	public double numFalsePositives(int classIndex) {
+		double result = 0;
+		for(int a = 0; a < numClasses; a++) {
+			if(a != classIndex) {
+				result += confusion[a][classIndex];
+			}
+		}
+		
+		return result;
+	}
+	
+	public double numTrueNegatives(int classIndex) {
+		double result = 0;
+		for(int a = 0; a < numClasses; a++) {
+			for(int p = 0; p < numClasses; p++) {
+				if(a != classIndex && p != classIndex) {
+					result += confusion[a][p];
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	public double numFalseNegatives(int classIndex) {
+		double result = 0;
+		for(int p = 0; p < numClasses; p++) {
+			if(p != classIndex) {
+				result += confusion[classIndex][p];
+			}
+		}
+		
+		return result;
+	}
+	
+	public double truePositiveRate(int classIndex) {
+		return Predictions.divideIfPossible(numTruePositives(classIndex), numTruePositives(classIndex) + numFalseNegatives(classIndex));
+	}
+	
+	public double falsePositiveRate(int classIndex) {
+		return Predictions.divideIfPossible(numFalsePositives(classIndex), numFalsePositives(classIndex) + numTrueNegatives(classIndex));
+	}
+	
+	public double precision(int classIndex) {
+		return Predictions.divideIfPossible(numTruePositives(classIndex), numTruePositives(classIndex) + numFalsePositives(classIndex));
+	}
+	
+	public double recall(int classIndex) {
+		return truePositiveRate(classIndex);
+	}
+	
+	public double fMeasure(int classIndex) {
+		double precision = precision(classIndex);
+		double recall = recall(classIndex);
+		
+		return Predictions.divideIfPossible(2 * precision * recall, precision + recall);
+	}
+	
+	public double areaUnderROC(int classIndex) {
+		//as the ROC area of ThresholdCurve: positives ranked over negatives, ties count one half, NaN with a single class
+		int positivesNumber = 0;
+		for(int a : actual) {
+			if(a == classIndex) {
+				positivesNumber++;
+			}
+		}
+		double[] positives = new double[positivesNumber];
+		double[] negatives = new double[ids.length - positivesNumber];
+		int p = 0;
+		int n = 0;
+		for(int i = 0; i < ids.length; i++) {
+			if(actual[i] == classIndex) {
+				positives[p++] = getProbability(i, classIndex);
+			}
+			else {
+				negatives[n++] = getProbability(i, classIndex);
+			}
+		}
+		Arrays.sort(positives);
+		Arrays.sort(negatives);
+		
+		double area = 0;
+		int lower = 0;
+		int tied = 0;
+		for(double score : positives) {
+			while(lower < negatives.length && negatives[lower] < score) {
+				lower++;
+			}
+			tied = Math.max(tied, lower);
+			while(tied < negatives.length && negatives[tied] == score) {
+				tied++;
+			}
+			area += lower + 0.5 * (tied - lower);
+		}
+		
+		return area / ((double) positives.length * negatives.length);
+	}
+	
+	public double kappa() {
+		double[] sumRows = new double[numClasses];
+		double[] sumColumns = new double[numClasses];
+		double sumOfWeights = 0;
+		for(int a = 0; a < numClasses; a++) {
+			for(int p = 0; p < numClasses; p++) {
+				sumRows[a] += confusion[a][p];
+				sumColumns[p] += confusion[a][p];
+				sumOfWeights += confusion[a][p];
+			}
+		}
+		
+		double agreement = 0;
+		double chanceAgreement = 0;
+		for(int c = 0; c < numClasses; c++) {
+			agreement += confusion[c][c];
+			chanceAgreement += sumRows[c] * sumColumns[c];
+		}
+		chanceAgreement /= sumOfWeights * sumOfWeights;
+		agreement /= sumOfWeights;
+		
+		if(chanceAgreement < 1) {
+			return (agreement - chanceAgreement) / (1 - chanceAgreement);
+		}
+		
+		return 1;
+	}
+	
+	public double pctCorrect() {
+		//unclassified instances count as wrong, as in Evaluation
+		return 100 * correct / ids.length;
+	}
+	
+	double[] getDistributions() {
+		return distributions;
+	}
+	
+	private static double divideIfPossible(double a, double b) {
+		if(b != 0) {
+			return a / b;
+		}
+		
+		return 0;
+	}
+	
+}
@@ -0,0 +1,52 @@
+package logic;
+
+public class ProjectDescriptor {
+	private final String name;
+	private final String path;
+	private final String savePath;
+	
+	public ProjectDescriptor(String name, String path, String savePath) {
+		//name as on jira, path of the git repository, folder of the results and the stores
+		this.name = name;
+		this.path = path;
+		this.savePath = savePath;
+	}
+	
+	public static ProjectDescriptor parse(String line) {
+		//name;path or name;path;savePath, the results are saved in the repository folder by default
+		String[] fields = line.split(";");
+		if(fields.length < 2 || fields[0].trim().isEmpty() || fields[1].trim().isEmpty()) {
+			throw new IllegalArgumentException("Invalid project descriptor: " + line);
+		}
+		String path = fields[1].trim();
+		String savePath = fields.length > 2 && !fields[2].trim().isEmpty() ? fields[2].trim() : path;
+		
+		return new ProjectDescriptor(fields[0].trim(), path, savePath);
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getPath() {
+		return path;
+	}
+	
+	public String getSavePath() {
+		return savePath;
+	}
+	
+	public String getSourcesPath() {
+		return savePath + Analyzer.ML_PATH;
+	}
+	
+	public String getStorePath(String storeName) {
+		return savePath + "\\" + name + storeName;
+	}
+	
+	@Override
+	public String toString() {
+		return name + " (" + path + ")";
+	}
+	
+}
@@ -1,26 +1,18 @@
 package logic;
 
-import java.io.BufferedReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 public class Release {
 	private String id;
 	private String name;
@@ -56,25 +48,28 @@ public class Release {
 		this.releaseDate = releaseDate;
 	}
 	
-	public static List<Release> getAllReleases(String projectName) throws IOException, JSONException {
+	public static List<Release> getAllReleases(String projectName) throws IOException {
+		return getAllReleases(projectName, new JiraClient());
+	}
+	
+	public static List<Release> getAllReleases(String projectName, JiraClient jiraClient) throws IOException {
+		return toOrderedReleases(jiraClient.getProjectVersions(projectName, Release::readRelease));
+	}
+	
+	public static List<Release> getAllReleases(IssueStore issueStore) {
+		//versions replayed from the local store, synced with jira before
+		return toOrderedReleases(issueStore.getVersions());
+	}
+	
+	private static List<Release> toOrderedReleases(List<Release> versions) {
 		//Fills the arrayList with releases dates and orders them
 		//Ignores releases with missing dates
 		List<Release> releases = new ArrayList<>();
-		String url = "https://issues.apache.org/jira/rest/api/2/project/" + projectName.toUpperCase();
-		JSONObject json = readJsonFromUrl(url);
-		JSONArray versions = json.getJSONArray("versions");
+		Set<LocalDateTime> releaseDates = new HashSet<>();
 		
-		Integer i;
-		for (i = 0; i < versions.length(); i++) {
-			JSONObject version = versions.getJSONObject(i);
-			String id = "";
-			String name = "";
-			String releaseDate;
-			if(version.has("releaseDate") && version.has("id") && version.has("name")) {
-				releaseDate = version.get("releaseDate").toString();
-				id = version.get("id").toString();
-				name = version.get("name").toString();
-				addRelease(releases, id, name, releaseDate);
+		for (Release release : versions) {
+			if (releaseDates.add(release.getReleaseDate())) { //only one release for each date
+				releases.add(release);
 			}
 		}
 		
@@ -85,7 +80,7 @@ public class Release {
 		return releases;
 	}
 	
-	public static void saveReleasesToCSV(String savePath, String projectName, List<Release> releases) throws JSONException, IOException {
+	public static void saveReleasesToCSV(String savePath, String projectName, List<Release> releases) throws IOException {
 		String outname = savePath + "\\" + projectName + "VersionsInfo.csv";
 		
 		try (FileWriter fileWriter = new FileWriter(outname)) {
@@ -104,40 +99,32 @@ public class Release {
 		}
 	}
 	
-	private static void addRelease(List<Release> releases, String id, String name, String strDate) {
-		LocalDate date = LocalDate.parse(strDate);
-		LocalDateTime dateTime = date.atStartOfDay();
-		if (!Release.isAlreadyAdded(dateTime, releases)) {
-			releases.add(new Release(id, name, dateTime));
-		}
-	}
-	
-	private static boolean isAlreadyAdded(LocalDateTime releaseDate, List<Release> releases) {
-		for (Release rel : releases) {
-			if (releaseDate == rel.getReleaseDate()) {
-				return true;
+	static Release readRelease(JsonPullParser parser) throws IOException {
+		//only id, name and releaseDate of the version are decoded
+		String id = null;
+		String name = null;
+		String releaseDate = null;
+		
+		parser.beginObject();
+		for (String field = parser.nextName(); field != null; field = parser.nextName()) {
+			if(field.equals("id")) {
+				id = parser.nextString();
+			}
+			else if(field.equals("name")) {
+				name = parser.nextString();
+			}
+			else if(field.equals("releaseDate")) {
+				releaseDate = parser.nextString();
+			}
+			else {
+				parser.skipValue();
 			}
 		}
-		return false;
-	}
-	
-	private static JSONObject readJsonFromUrl(String url) throws IOException, JSONException {
-		InputStream is = new URL(url).openStream();
-		try (BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-			String jsonText = readAll(rd);
-			return new JSONObject(jsonText);
-		} finally {
-			is.close();
+		if(id == null || name == null || releaseDate == null) {
+			return null;
 		}
-	}
-	
-	private static String readAll(Reader rd) throws IOException {
-		StringBuilder sb = new StringBuilder();
-		int cp;
-		while ((cp = rd.read()) != -1) {
-			sb.append((char) cp);
-			}
-		return sb.toString();
+		
+		return new Release(id, name, LocalDate.parse(releaseDate).atStartOfDay());
 	}
 	
 }
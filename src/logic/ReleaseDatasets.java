@@ -0,0 +1,248 @@
+package logic;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import logic.ExperimentGrid.Balancing;
+import logic.ExperimentGrid.ClassifierType;
+import logic.ExperimentGrid.FeatureSelection;
+import weka.attributeSelection.BestFirst;
+import weka.attributeSelection.CfsSubsetEval;
+import weka.classifiers.Classifier;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.filters.Filter;
+import weka.filters.supervised.attribute.AttributeSelection;
+
+public class ReleaseDatasets {
+	public static final int TRAINING = 0;
+	public static final int TEST = 1;
+	public static final int PREPROCESSING_VERSION = 2; //to be increased whenever balancing or feature selection build different sets
+	
+	private final int release;
+	private final Instances training;
+	private final Instances test;
+	private final int trainingBugged;
+	private final int trainingNotBugged;
+	private final int testBugged;
+	
+	//preprocessed (training, test) pairs, each computed once and shared by all the experiments that use it
+	private final Map<Integer, FutureTask<Instances[]>> prepared;
+	
+	//under and over sampling of the training set as drawn indexes
+	private final Map<Integer, FutureTask<ResampleView>> resampled;
+	
+	//predicted distributions of the test set, for every trained model
+	private final Map<Integer, FutureTask<double[][]>> scored;
+	
+	//models carried over from the previous release, null to always train from scratch
+	private final IncrementalTrainer incrementalTrainer;
+	
+	//classifiers and filters trained by previous runs, null to always train them
+	private final ModelStore modelStore;
+	
+	public ReleaseDatasets(WekaBridge bridge, int release, IncrementalTrainer incrementalTrainer, ModelStore modelStore) {
+		this.release = release;
+		this.incrementalTrainer = incrementalTrainer;
+		this.modelStore = modelStore;
+		this.training = bridge.getTraining(release);
+		this.test = bridge.getTest(release);
+		this.prepared = new ConcurrentHashMap<>();
+		this.resampled = new ConcurrentHashMap<>();
+		this.scored = new ConcurrentHashMap<>();
+		
+		this.trainingBugged = bridge.getTrainingBugged(release);
+		this.trainingNotBugged = bridge.getTrainingSize(release) - trainingBugged;
+		this.testBugged = bridge.getTestBugged(release);
+	}
+	
+	public int getRelease() {
+		return release;
+	}
+	
+	public Instances getTraining() {
+		return training;
+	}
+	
+	public Instances getTest() {
+		return test;
+	}
+	
+	public int getTrainingBugged() {
+		return trainingBugged;
+	}
+	
+	public int getTrainingNotBugged() {
+		return trainingNotBugged;
+	}
+	
+	public int getTestBugged() {
+		return testBugged;
+	}
+	
+	public Instances getTraining(FeatureSelection featureSelection, Balancing balancing, Classifier classifier) throws Exception {
+		//a training set of its own for the classifier, the instances share their values with the cached ones
+		Integer key = featureSelection.ordinal() * Balancing.values().length + balancing.ordinal();
+		if(balancing == Balancing.UNDER_SAMPLING || balancing == Balancing.OVER_SAMPLING) {
+			//resampling is kept as drawn indexes, weighted or expanded only for the classifier using it
+			ResampleView view = ReleaseDatasets.computeOnce(resampled, key, () -> resample(featureSelection, balancing));
+			return view.forClassifier(classifier);
+		}
+		
+		return new Instances(get(featureSelection, balancing)[TRAINING]);
+	}
+	
+	public Instances getTest(FeatureSelection featureSelection) throws Exception {
+		//shared between threads and only read by the evaluation: never change it
+		return get(featureSelection, Balancing.NONE)[TEST];
+	}
+	
+	private Instances[] get(FeatureSelection featureSelection, Balancing balancing) throws Exception {
+		if(featureSelection == FeatureSelection.NONE && balancing == Balancing.NONE) {
+			return new Instances[] {training, test};
+		}
+		
+		Integer key = featureSelection.ordinal() * Balancing.values().length + balancing.ordinal();
+		return ReleaseDatasets.computeOnce(prepared, key, () -> prepare(featureSelection, balancing));
+	}
+	
+	public double[][] getDistributions(ClassifierType classifierType, FeatureSelection featureSelection, Balancing balancing) throws Exception {
+		//the model is trained and the test set scored once, every evaluation of the model starts from these distributions
+		Integer key = (classifierType.ordinal() * FeatureSelection.values().length + featureSelection.ordinal()) * Balancing.values().length + balancing.ordinal();
+		return ReleaseDatasets.computeOnce(scored, key, () -> score(classifierType, featureSelection, balancing));
+	}
+	
+	private static <T> T computeOnce(Map<Integer, FutureTask<T>> results, Integer key, Callable<T> computation) throws Exception {
+		FutureTask<T> task = new FutureTask<>(computation);
+		FutureTask<T> existing = results.putIfAbsent(key, task);
+		if(existing == null) {
+			//the first experiment asking for the result computes it, the others wait for it
+			existing = task;
+			task.run();
+		}
+		
+		try {
+			return existing.get();
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+	
+	private double[][] score(ClassifierType classifierType, FeatureSelection featureSelection, Balancing balancing) throws Exception {
+		//only the plain training set grows by a release at every step, selected and balanced sets are built again from scratch
+		if(incrementalTrainer != null && incrementalTrainer.supports(classifierType)
+				&& featureSelection == FeatureSelection.NONE && balancing == Balancing.NONE) {
+			double[][] result = incrementalTrainer.getDistributions(classifierType, release);
+			if(result != null) {
+				return result;
+			}
+		}
+		
+		Classifier classifier = classifierType.newClassifier();
+		classifier = train(classifier, getTraining(featureSelection, balancing, classifier));
+		
+		return ReleaseDatasets.score(classifier, getTest(featureSelection));
+	}
+	
+	Classifier train(Classifier classifier, Instances trainingSet) throws Exception {
+		//the returned classifier is the stored one when the same model was already trained on the same data
+		if(modelStore != null) {
+			return modelStore.getOrBuild(classifier, trainingSet);
+		}
+		
+		classifier.buildClassifier(trainingSet);
+		return classifier;
+	}
+	
+	static double[][] score(Classifier classifier, Instances testSet) throws Exception {
+		//as in Evaluation, every test instance is scored with its class missing
+		double[][] result = new double[testSet.size()][];
+		for(int i = 0; i < result.length; i++) {
+			Instance classMissing = (Instance) testSet.instance(i).copy();
+			classMissing.setDataset(testSet);
+			classMissing.setClassMissing();
+			result[i] = classifier.distributionForInstance(classMissing);
+		}
+		
+		return result;
+	}
+	
+	private Instances[] prepare(FeatureSelection featureSelection, Balancing balancing) throws Exception {
+		if(balancing == Balancing.SMOTE) {
+			//balancing applies to the training set after feature selection, reusing the selected sets
+			//built-in SMOTE, neighbours found on a KD-tree
+			Instances[] selected = get(featureSelection, Balancing.NONE);
+			FastSMOTE smote = getSMOTESampling(getMajority(), getMinority());
+			if(Analyzer.VERIFY_SMOTE && !smote.matchesReference(selected[TRAINING])) {
+				throw new IllegalStateException("FastSMOTE differs from its reference mode on the training set of release " + release);
+			}
+			return new Instances[] {smote.apply(selected[TRAINING]), selected[TEST]};
+		}
+		
+		AttributeSelection attributeSelection = new AttributeSelection();
+		attributeSelection.setEvaluator(new CfsSubsetEval());
+		attributeSelection.setSearch(new BestFirst()); //standard BestFirst with no other sets
+		Filter selection = attributeSelection;
+		if(modelStore != null) {
+			//the attribute search runs only when the training set changed
+			selection = modelStore.getOrBuild(attributeSelection, training);
+		}
+		else {
+			selection.setInputFormat(training);
+		}
+		
+		return new Instances[] {Filter.useFilter(training, selection), Filter.useFilter(test, selection)};
+	}
+	
+	private ResampleView resample(FeatureSelection featureSelection, Balancing balancing) throws Exception {
+		Instances selected = get(featureSelection, Balancing.NONE)[TRAINING];
+		if(balancing == Balancing.UNDER_SAMPLING) {
+			return ResampleView.sample(selected, getUnderSamplingPercent(getMajority(), getMinority()), false, ResampleView.DEFAULT_SEED);
+		}
+		
+		return ResampleView.sample(selected, getOverSamplingPercent(getMajority(), getMinority()), true, ResampleView.DEFAULT_SEED);
+	}
+	
+	private int getMajority() {
+		return Math.max(trainingBugged, trainingNotBugged);
+	}
+	
+	private int getMinority() {
+		return Math.min(trainingBugged, trainingNotBugged);
+	}
+	
+	private static double getUnderSamplingPercent(int majority, int minority) {
+		if(minority == 0) { //training normalizer
+			minority = 1;
+		}
+		if(majority + minority != 0) {
+			return 2 * 100 * (double) minority / (majority + minority);
+		}
+		
+		return 100;
+	}
+	
+	private static double getOverSamplingPercent(int majority, int minority) {
+		if(majority + minority != 0) {
+			return 2 * 100 * (double) majority / (majority + minority);
+		}
+		
+		return 100;
+	}
+	
+	private static FastSMOTE getSMOTESampling(int majority, int minority) {
+		double percentage = 0;
+		if(minority != 0) {
+			percentage = 100 * (double) (majority - minority) / minority;
+		}
+		
+		return new FastSMOTE(percentage);
+	}
+	
+}
@@ -0,0 +1,82 @@
+package logic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReleaseTimeline {
+	private final List<Release> releases;
+	
+	//release dates of the ordered releases as epoch days, for binary search
+	private final long[] releaseDays;
+	private final Map<String, Integer> versionIndexes;
+	
+	public ReleaseTimeline(List<Release> orderedReleases) {
+		this.releases = orderedReleases;
+		this.releaseDays = new long[orderedReleases.size()];
+		this.versionIndexes = new HashMap<>();
+		
+		for(int k = 0; k < orderedReleases.size(); k++) {
+			Release rel = orderedReleases.get(k);
+			releaseDays[k] = rel.getReleaseDate().toLocalDate().toEpochDay();
+			versionIndexes.putIfAbsent(rel.getVersionID(), k+1);
+		}
+	}
+	
+	public int size() {
+		return releaseDays.length;
+	}
+	
+	public Release getRelease(int index) {
+		return releases.get(index);
+	}
+	
+	public LocalDateTime getReleaseDate(int index) {
+		return releases.get(index).getReleaseDate();
+	}
+	
+	public int getVersionIndex(String versionID) {
+		//version from 1 to n, 0 if the version is not a known release
+		Integer index = versionIndexes.get(versionID);
+		if(index == null) {
+			return 0;
+		}
+		
+		return index;
+	}
+	
+	public int findVersion(LocalDateTime date) {
+		//first version (from 1 to n) released after the date, 0 if the date is after the last release
+		int k = upperBound(date.toLocalDate().toEpochDay());
+		if(k < releaseDays.length) {
+			return k+1;
+		}
+		
+		return 0;
+	}
+	
+	public int findReleaseWindow(LocalDate date) {
+		//index (from 0 to n-1) of the last release done on or before the date, -1 if the date is before the first release
+		return upperBound(date.toEpochDay()) - 1;
+	}
+	
+	private int upperBound(long day) {
+		//first index with releaseDays[index] > day
+		int low = 0;
+		int high = releaseDays.length;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(releaseDays[mid] <= day) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		
+		return low;
+	}
+	
+}
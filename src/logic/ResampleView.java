@@ -0,0 +1,150 @@
+package logic;
+
+import java.util.Random;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.meta.CostSensitiveClassifier;
+import weka.classifiers.trees.J48;
+import weka.core.Instances;
+
+public class ResampleView {
+	public static final long DEFAULT_SEED = 1;
+	
+	private final Instances data;
+	
+	//distinct drawn instances (indexes in data, ascending) and how many times each one was drawn
+	private final int[] indexes;
+	private final int[] counts;
+	private final int size;
+	
+	private ResampleView(Instances data, int[] drawCounts) {
+		this.data = data;
+		
+		int distinct = 0;
+		int total = 0;
+		for(int count : drawCounts) {
+			if(count > 0) {
+				distinct++;
+				total += count;
+			}
+		}
+		this.indexes = new int[distinct];
+		this.counts = new int[distinct];
+		this.size = total;
+		
+		int j = 0;
+		for(int i = 0; i < drawCounts.length; i++) {
+			if(drawCounts[i] > 0) {
+				indexes[j] = i;
+				counts[j] = drawCounts[i];
+				j++;
+			}
+		}
+	}
+	
+	public static ResampleView sample(Instances data, double sampleSizePercent, boolean replacement, long seed) {
+		//as Resample with bias to uniform class: the same number of draws from every class with instances
+		int classIndex = data.classIndex();
+		int numClasses = data.numClasses();
+		int[] classSizes = new int[numClasses];
+		for(int i = 0; i < data.size(); i++) {
+			classSizes[(int) data.instance(i).value(classIndex)]++;
+		}
+		int[][] byClass = new int[numClasses][];
+		int actualClasses = 0;
+		for(int c = 0; c < numClasses; c++) {
+			byClass[c] = new int[classSizes[c]];
+			if(classSizes[c] > 0) {
+				actualClasses++;
+			}
+		}
+		int[] filled = new int[numClasses];
+		for(int i = 0; i < data.size(); i++) {
+			int c = (int) data.instance(i).value(classIndex);
+			byClass[c][filled[c]++] = i;
+		}
+		
+		int[] drawCounts = new int[data.size()];
+		Random random = new Random(seed);
+		int sampleSize = (int) (sampleSizePercent * data.size() / 100);
+		for(int c = 0; c < numClasses; c++) {
+			int[] members = byClass[c];
+			if(members.length == 0) {
+				continue;
+			}
+			int draws = sampleSize / actualClasses;
+			if(replacement) {
+				for(int j = 0; j < draws; j++) {
+					drawCounts[members[random.nextInt(members.length)]]++;
+				}
+			}
+			else {
+				//partial shuffle, the first draws members are taken once each
+				draws = Math.min(draws, members.length);
+				int[] shuffled = members.clone();
+				for(int j = 0; j < draws; j++) {
+					int swap = j + random.nextInt(shuffled.length - j);
+					int tmp = shuffled[j];
+					shuffled[j] = shuffled[swap];
+					shuffled[swap] = tmp;
+					drawCounts[shuffled[j]]++;
+				}
+			}
+		}
+		
+		return new ResampleView(data, drawCounts);
+	}
+	
+	public int size() {
+		//number of draws, the size of the resampled set
+		return size;
+	}
+	
+	public int getDistinct() {
+		return indexes.length;
+	}
+	
+	public Instances forClassifier(Classifier classifier) {
+		//weighted only where one weighted instance learns the same as its duplicates, not for every WeightedInstancesHandler:
+		//IBk gives a neighbour slot to every copy and RandomForest bags as many rows as the set has
+		if(ResampleView.isWeightEquivalent(classifier)) {
+			return asWeighted();
+		}
+		
+		return asExpanded();
+	}
+	
+	static boolean isWeightEquivalent(Classifier classifier) {
+		if(classifier instanceof CostSensitiveClassifier) {
+			//the set is reweighted by class for the classifier it wraps
+			return ResampleView.isWeightEquivalent(((CostSensitiveClassifier) classifier).getClassifier());
+		}
+		
+		return classifier instanceof NaiveBayes || classifier instanceof J48;
+	}
+	
+	public Instances asWeighted() {
+		//one instance for every distinct draw, its weight multiplied by the number of draws: the size does not grow with the sampling ratio
+		Instances result = new Instances(data, indexes.length);
+		for(int j = 0; j < indexes.length; j++) {
+			result.add(data.instance(indexes[j]));
+			result.instance(j).setWeight(data.instance(indexes[j]).weight() * counts[j]);
+		}
+		
+		return result;
+	}
+	
+	public Instances asExpanded() {
+		//one instance for every draw, for the classifiers ignoring weights; the copies share the values of the original instances
+		Instances result = new Instances(data, size);
+		for(int j = 0; j < indexes.length; j++) {
+			for(int n = 0; n < counts[j]; n++) {
+				result.add(data.instance(indexes[j]));
+			}
+		}
+		
+		return result;
+	}
+	
+}
@@ -0,0 +1,150 @@
+package logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Stage {
+	private final String name;
+	private final Action action;
+	private final List<String> dependencies;
+	private final List<File> inputs;
+	private final List<File> outputs;
+	private Restore restore;
+	private File stamp;
+	private boolean always;
+	
+	@FunctionalInterface
+	public interface Action {
+		void run() throws IOException;
+	}
+	
+	@FunctionalInterface
+	public interface Restore {
+		//false when the outputs can not be read back, the stage is run again
+		boolean restore() throws IOException;
+	}
+	
+	public Stage(String name, Action action) {
+		//a stage without outputs only builds state in memory, it runs every time
+		this.name = name;
+		this.action = action;
+		this.dependencies = new ArrayList<>();
+		this.inputs = new ArrayList<>();
+		this.outputs = new ArrayList<>();
+		this.restore = () -> true;
+	}
+	
+	public Stage dependsOn(String... stageNames) {
+		Collections.addAll(dependencies, stageNames);
+		return this;
+	}
+	
+	public Stage reads(String... files) {
+		//inputs that do not exist are left out of the check
+		for(String file : files) {
+			inputs.add(new File(file));
+		}
+		return this;
+	}
+	
+	public Stage writes(String... files) {
+		for(String file : files) {
+			outputs.add(new File(file));
+		}
+		return this;
+	}
+	
+	public Stage stampedBy(String file) {
+		//an empty file touched after the run, for stages writing too many files to list
+		stamp = new File(file);
+		outputs.add(stamp);
+		return this;
+	}
+	
+	public Stage restoredBy(Restore restore) {
+		//loads the outputs of a skipped stage, for the stages after it
+		this.restore = restore;
+		return this;
+	}
+	
+	public Stage always() {
+		//run every time, e.g. a sync that is incremental on its own
+		always = true;
+		return this;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public List<String> getDependencies() {
+		return dependencies;
+	}
+	
+	public boolean isUpToDate() {
+		//make rule: every output exists and none is older than the newest input
+		if(always || outputs.isEmpty()) {
+			return false;
+		}
+		
+		long oldestOutput = Long.MAX_VALUE;
+		for(File output : outputs) {
+			if(!output.exists()) {
+				return false;
+			}
+			oldestOutput = Math.min(oldestOutput, output.lastModified());
+		}
+		for(File input : inputs) {
+			if(input.exists() && input.lastModified() > oldestOutput) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	public boolean run() throws IOException {
+		//true when the run changed some output, the stages after it can not be skipped then
+		long[] before = getModifiedTimes();
+		action.run();
+		if(stamp != null) {
+			stamp.getAbsoluteFile().getParentFile().mkdirs();
+			//the content does not matter, only the modified time
+			Files.write(stamp.toPath(), new byte[0]);
+			stamp.setLastModified(System.currentTimeMillis());
+		}
+		
+		long[] after = getModifiedTimes();
+		for(int i = 0; i < outputs.size(); i++) {
+			if(after[i] != before[i]) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	public boolean restore() throws IOException {
+		return restore.restore();
+	}
+	
+	private long[] getModifiedTimes() {
+		//0 for a missing file
+		long[] result = new long[outputs.size()];
+		for(int i = 0; i < outputs.size(); i++) {
+			result[i] = outputs.get(i).lastModified();
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public String toString() {
+		return "Stage " + name;
+	}
+	
+}
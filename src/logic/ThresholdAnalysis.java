@@ -0,0 +1,49 @@
+package logic;
+
+import weka.classifiers.CostMatrix;
+import weka.core.Instances;
+
+public class ThresholdAnalysis {
+	private final Instances test;
+	private final double[][] distributions;
+	
+	public ThresholdAnalysis(Instances test, double[][] distributions) {
+		//distributions predicted by one trained model for every test instance, in the order of the test set
+		this.test = test;
+		this.distributions = distributions;
+	}
+	
+	public Predictions getPredictions() {
+		return Predictions.of(test, distributions);
+	}
+	
+	public Predictions getPredictions(CostMatrix costMatrix) {
+		//predictions of the cost sensitive threshold, all the metrics come from them
+		double[][] predicted = new double[distributions.length][];
+		for(int i = 0; i < distributions.length; i++) {
+			predicted[i] = new double[distributions[i].length];
+			predicted[i][minExpectedCostClass(distributions[i], costMatrix)] = 1.0;
+		}
+		
+		return Predictions.of(test, predicted);
+	}
+	
+	private static int minExpectedCostClass(double[] distribution, CostMatrix costMatrix) {
+		//as CostSensitiveClassifier: the first class with the lowest expected cost
+		int result = 0;
+		double minCost = Double.MAX_VALUE;
+		for(int predicted = 0; predicted < distribution.length; predicted++) {
+			double cost = 0;
+			for(int real = 0; real < distribution.length; real++) {
+				cost += distribution[real] * costMatrix.getElement(real, predicted);
+			}
+			if(cost < minCost) {
+				minCost = cost;
+				result = predicted;
+			}
+		}
+		
+		return result;
+	}
+	
+}
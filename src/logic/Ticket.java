@@ -1,25 +1,16 @@
 package logic;
 
-import java.io.BufferedReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 public class Ticket {
 	public static final Logger logger = Logger.getLogger(Ticket.class.getName());
 	
@@ -87,46 +78,30 @@ public class Ticket {
 		this.fixedVersion = fixedVersion;
 	}
 	
-	public static List<Ticket> getFixedBugTickets(String projName, List<Release> releases) throws JSONException, IOException {
-		List<Ticket> tickets = new ArrayList<>();
-		Integer i = 0;
-		Integer j = 0;
-		Integer total = 1;
+	public static List<Ticket> getFixedBugTickets(String projName, ReleaseTimeline timeline) throws IOException {
+		return getFixedBugTickets(projName, timeline, new JiraClient());
+	}
+	
+	public static List<Ticket> getFixedBugTickets(String projName, ReleaseTimeline timeline, JiraClient jiraClient) throws IOException {
 		//Get JSON API for closed bugs w/ AV in the project
+		String jql = "project=%22" + projName + "%22AND%22issueType%22=%22Bug%22AND(%22status%22=%22closed%22OR"
+				+ "%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22";
 		
-		while (i < total) { //Only gets a max of 1000 at a time, so must do this multiple times if bugs >1000
-			j = i + 1000;
-			String url = "https://issues.apache.org/jira/rest/api/2/search?jql=project=%22"
-			+ projName + "%22AND%22issueType%22=%22Bug%22AND(%22status%22=%22closed%22OR"
-			+ "%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22&fields=key,resolutiondate,versions,created&startAt="
-			+ i.toString() + "&maxResults=" + j.toString();
-			
-			JSONObject json = readJsonFromUrl(url);
-			JSONArray issues = json.getJSONArray("issues");
-			total = json.getInt("total");
-			for (; i < total && i < j; i++) { //Iterate through each ticket found
-				JSONObject jsonIssues = issues.getJSONObject(i%1000);
-				JSONObject jsonFields = jsonIssues.getJSONObject("fields");
-				JSONArray jsonAffVers = jsonFields.getJSONArray("versions");
-				int injectedVersion = 0;				
-				
-				String key = jsonIssues.get("key").toString();
-				String createdAt = jsonFields.get("created").toString().replace(".000+0000", "");
-				LocalDateTime openDate = LocalDateTime.parse(createdAt);
-				String resolutionDate = jsonFields.get("resolutiondate").toString().replace(".000+0000", "");
-				LocalDateTime fixedDate = LocalDateTime.parse(resolutionDate);
-				if(!jsonAffVers.isEmpty()) {
-					injectedVersion = Ticket.getVersionIndex(jsonAffVers.getJSONObject(0).get("id").toString(), releases);
-				}
-				int openVersion = findOpenVersion(createdAt, releases);
-				int fixedVersion = findFixedVersion(resolutionDate, releases);
-				
-				injectedVersion = min(injectedVersion, openVersion);
-				
-				//Discard tickets with open date before the first release date and with fixed version not defined
-				if(!openDate.isBefore(releases.get(0).getReleaseDate()) && fixedVersion > 0 && openVersion <= fixedVersion) {
-					tickets.add(new Ticket(key, openDate, fixedDate, injectedVersion, openVersion, fixedVersion));
-				}
+		//pages of fixed size fetched concurrently, only the needed fields of every issue are decoded
+		return toTickets(jiraClient.search(jql, JiraIssue.FIELDS, JiraIssue::read), timeline);
+	}
+	
+	public static List<Ticket> getFixedBugTickets(ReleaseTimeline timeline, IssueStore issueStore) {
+		//issues replayed from the local store, synced with jira before
+		return toTickets(issueStore.getIssues(), timeline);
+	}
+	
+	private static List<Ticket> toTickets(Collection<JiraIssue> issues, ReleaseTimeline timeline) {
+		List<Ticket> tickets = new ArrayList<>();
+		for (JiraIssue issue : issues) {
+			Ticket ticket = fromIssue(issue, timeline);
+			if(ticket != null) {
+				tickets.add(ticket);
 			}
 		}
 		
@@ -137,7 +112,31 @@ public class Ticket {
 		return tickets;
 	}
 	
-	public static void saveTicketsToCSV(String savePath, String projectName, List<Ticket> tickets) throws JSONException, IOException {
+	private static Ticket fromIssue(JiraIssue issue, ReleaseTimeline timeline) {
+		if(!issue.isFixed()) {
+			return null;
+		}
+		
+		LocalDateTime openDate = LocalDateTime.parse(issue.getCreated().replace(".000+0000", ""));
+		LocalDateTime fixedDate = LocalDateTime.parse(issue.getResolutionDate().replace(".000+0000", ""));
+		int injectedVersion = 0;
+		if(issue.getAffectedVersionID() != null) {
+			injectedVersion = timeline.getVersionIndex(issue.getAffectedVersionID());
+		}
+		int openVersion = timeline.findVersion(openDate);
+		int fixedVersion = timeline.findVersion(fixedDate);
+		
+		injectedVersion = min(injectedVersion, openVersion);
+		
+		//Discard tickets with open date before the first release date and with fixed version not defined
+		if(!openDate.isBefore(timeline.getReleaseDate(0)) && fixedVersion > 0 && openVersion <= fixedVersion) {
+			return new Ticket(issue.getKey(), openDate, fixedDate, injectedVersion, openVersion, fixedVersion);
+		}
+		
+		return null;
+	}
+	
+	public static void saveTicketsToCSV(String savePath, String projectName, List<Ticket> tickets) throws IOException {
 		String outname = savePath + "\\" + projectName + "TicketInfo.csv";
 		
 		try (FileWriter fileWriter = new FileWriter(outname)) {
@@ -211,67 +210,4 @@ public class Ticket {
 		return 0;
 	}
 	
-	private static int getVersionIndex(String versionID, List<Release> releases) {
-		for (Release rel : releases) {
-			if (versionID.equals(rel.getVersionID())) {
-				return releases.indexOf(rel)+1;
-			}
-		}
-		return 0;
-	}
-	
-	private static int findOpenVersion(String createdAt, List<Release> orderedReleases) {
-		LocalDateTime openDate = LocalDateTime.parse(createdAt);
-		LocalDateTime releaseDate = orderedReleases.get(0).getReleaseDate();
-		if(openDate.isBefore(releaseDate)) {
-			return 1;
-		}
-		else {
-			for(int k = 1; k < orderedReleases.size(); k++) {
-				releaseDate = orderedReleases.get(k).getReleaseDate();
-				if(openDate.isBefore(releaseDate)) {
-					return k+1;
-				}
-			}
-		}
-		
-		return 0;
-	}
-	
-	private static int findFixedVersion(String resolutionDate, List<Release> orderedReleases) {
-		LocalDateTime resDate = LocalDateTime.parse(resolutionDate);
-		LocalDateTime releaseDate = orderedReleases.get(0).getReleaseDate();
-		if(resDate.isBefore(releaseDate)) {
-			return 1;
-		}
-		else {
-			for(Integer k = 1; k < orderedReleases.size(); k++) {
-				releaseDate = orderedReleases.get(k).getReleaseDate();
-				if(resDate.isBefore(releaseDate)) {
-					return k+1;
-				}
-			}
-		}
-		
-		return 0;
-	}
-	
-	private static String readAll(Reader rd) throws IOException {
-		StringBuilder sb = new StringBuilder();
-		int cp;
-		while ((cp = rd.read()) != -1) {
-			sb.append((char) cp);
-		}
-		return sb.toString();
-	}
-
-	private static JSONObject readJsonFromUrl(String url) throws IOException, JSONException {
-		try (InputStream is = new URL(url).openStream()) {
-			BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-			String jsonText = readAll(rd);
-			
-			return new JSONObject(jsonText);
-		}
-	}
-	
 }
@@ -0,0 +1,201 @@
+package logic;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+public class TicketRegistry {
+	private static final int EMPTY = -1;
+	
+	private final String ticketPrefix;
+	
+	//open addressing table, ticket number -> ticket
+	private final int[] keys;
+	private final Ticket[] values;
+	private final int mask;
+	private final int size;
+	
+	//tickets sorted by open date, resolution date and fixed version, for range queries
+	private final Ticket[] byOpenDate;
+	private final long[] openDates;
+	private final Ticket[] byResolutionDate;
+	private final long[] resolutionDates;
+	private final Ticket[] byFixedVersion;
+	private final int[] fixedVersions;
+	
+	public TicketRegistry(String projectName, List<Ticket> tickets) {
+		this.ticketPrefix = projectName.toUpperCase() + "-";
+		
+		int capacity = Integer.highestOneBit(Math.max(2 * tickets.size(), 1) * 2 - 1);
+		this.keys = new int[capacity];
+		this.values = new Ticket[capacity];
+		this.mask = capacity - 1;
+		Arrays.fill(keys, EMPTY);
+		
+		int count = 0;
+		for(Ticket t : tickets) {
+			if(put(getNumber(t.getTicketID()), t)) {
+				count++;
+			}
+		}
+		this.size = count;
+		
+		this.byOpenDate = sort(tickets, Comparator.comparing(Ticket::getOpenDate));
+		this.openDates = new long[byOpenDate.length];
+		for(int i = 0; i < byOpenDate.length; i++) {
+			openDates[i] = toEpoch(byOpenDate[i].getOpenDate());
+		}
+		
+		this.byResolutionDate = sort(tickets, Comparator.comparing(Ticket::getResolutionDate));
+		this.resolutionDates = new long[byResolutionDate.length];
+		for(int i = 0; i < byResolutionDate.length; i++) {
+			resolutionDates[i] = toEpoch(byResolutionDate[i].getResolutionDate());
+		}
+		
+		this.byFixedVersion = sort(tickets, Comparator.comparingInt(Ticket::getFixedVersion));
+		this.fixedVersions = new int[byFixedVersion.length];
+		for(int i = 0; i < byFixedVersion.length; i++) {
+			fixedVersions[i] = byFixedVersion[i].getFixedVersion();
+		}
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public Ticket get(int ticketNumber) {
+		int slot = hash(ticketNumber) & mask;
+		while(keys[slot] != EMPTY) {
+			if(keys[slot] == ticketNumber) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		return null;
+	}
+	
+	public Ticket get(String ticketID) {
+		if(ticketID == null || !ticketID.startsWith(ticketPrefix)) {
+			return null;
+		}
+		
+		return get(getNumber(ticketID));
+	}
+	
+	public boolean contains(int ticketNumber) {
+		return get(ticketNumber) != null;
+	}
+	
+	public boolean contains(String ticketID) {
+		return get(ticketID) != null;
+	}
+	
+	public List<Ticket> getOpenedBetween(LocalDateTime from, LocalDateTime to) {
+		//tickets opened in [from, to)
+		return range(byOpenDate, lowerBound(openDates, toEpoch(from)), lowerBound(openDates, toEpoch(to)));
+	}
+	
+	public List<Ticket> getResolvedBetween(LocalDateTime from, LocalDateTime to) {
+		//tickets resolved in [from, to)
+		return range(byResolutionDate, lowerBound(resolutionDates, toEpoch(from)), lowerBound(resolutionDates, toEpoch(to)));
+	}
+	
+	public List<Ticket> getFixedBetween(int fromVersion, int toVersion) {
+		//tickets with fixed version in [fromVersion, toVersion), versions from 1 to n as in Ticket
+		return range(byFixedVersion, lowerBound(fixedVersions, fromVersion), lowerBound(fixedVersions, toVersion));
+	}
+	
+	public List<Ticket> getAffecting(int version) {
+		//tickets with IV <= version < FV, versions from 1 to n as in Ticket
+		List<Ticket> result = new ArrayList<>();
+		for(int i = lowerBound(fixedVersions, version + 1); i < byFixedVersion.length; i++) {
+			if(byFixedVersion[i].getInjectedVersion() <= version) {
+				result.add(byFixedVersion[i]);
+			}
+		}
+		
+		return result;
+	}
+	
+	private boolean put(int ticketNumber, Ticket ticket) {
+		int slot = hash(ticketNumber) & mask;
+		while(keys[slot] != EMPTY) {
+			if(keys[slot] == ticketNumber) {
+				values[slot] = ticket;
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = ticketNumber;
+		values[slot] = ticket;
+		
+		return true;
+	}
+	
+	private int getNumber(String ticketID) {
+		return Integer.parseInt(ticketID.substring(ticketPrefix.length()));
+	}
+	
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	private static Ticket[] sort(List<Ticket> tickets, Comparator<Ticket> comparator) {
+		Ticket[] sorted = tickets.toArray(new Ticket[0]);
+		Arrays.sort(sorted, comparator);
+		
+		return sorted;
+	}
+	
+	private static long toEpoch(LocalDateTime date) {
+		return date.toEpochSecond(ZoneOffset.UTC);
+	}
+	
+	private static int lowerBound(long[] sorted, long key) {
+		//first index with sorted[index] >= key
+		int low = 0;
+		int high = sorted.length;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(sorted[mid] < key) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		
+		return low;
+	}
+	
+	private static int lowerBound(int[] sorted, int key) {
+		int low = 0;
+		int high = sorted.length;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(sorted[mid] < key) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		
+		return low;
+	}
+	
+	private static List<Ticket> range(Ticket[] sorted, int from, int to) {
+		List<Ticket> result = new ArrayList<>(Math.max(to - from, 0));
+		for(int i = from; i < to; i++) {
+			result.add(sorted[i]);
+		}
+		
+		return result;
+	}
+	
+}
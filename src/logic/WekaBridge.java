@@ -0,0 +1,138 @@
+package logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import logic.MetricsTable.Metric;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.converters.ArffSaver;
+
+public class WekaBridge {
+	private static final String VERSION = "Version";
+	private static final String BUGGED = "Bugged";
+	
+	private final MetricsTable fileMetrics;
+	private final int versionsToAnalyze;
+	
+	//one header (Version, metrics, Bugged) shared by every training and test set
+	private final ArrayList<Attribute> attributes;
+	private final int classIndex;
+	
+	public WekaBridge(MetricsTable fileMetrics, int versionsToAnalyze) {
+		this.fileMetrics = fileMetrics;
+		this.versionsToAnalyze = versionsToAnalyze;
+		this.attributes = new ArrayList<>();
+		
+		attributes.add(new Attribute(VERSION));
+		for(Metric m : Metric.values()) {
+			attributes.add(new Attribute(m.getHeader()));
+		}
+		attributes.add(new Attribute(BUGGED, Arrays.asList("false", "true")));
+		this.classIndex = attributes.size() - 1;
+	}
+	
+	public int getVersionsToAnalyze() {
+		return versionsToAnalyze;
+	}
+	
+	public Instances getTraining(int release) {
+		//release from 1 to n as in Training<n>.csv: every version before the tested one
+		return build("Training" + release, 0, fileMetrics.getFirstRow(release - 1));
+	}
+	
+	public Instances getTest(int release) {
+		//release from 1 to n as in Test<n>.csv: only the tested version
+		return build("Test" + release, fileMetrics.getFirstRow(release - 1), fileMetrics.getEndRow(release - 1));
+	}
+	
+	public int getTrainingSize(int release) {
+		return fileMetrics.getFirstRow(release - 1);
+	}
+	
+	public int getTestSize(int release) {
+		return fileMetrics.getEndRow(release - 1) - fileMetrics.getFirstRow(release - 1);
+	}
+	
+	public int getTrainingBugged(int release) {
+		return countBugged(0, fileMetrics.getFirstRow(release - 1));
+	}
+	
+	public int getTestBugged(int release) {
+		return countBugged(fileMetrics.getFirstRow(release - 1), fileMetrics.getEndRow(release - 1));
+	}
+	
+	public long getFingerprint() {
+		//changes whenever any value of the sets changes, to tell if results computed on them are still valid
+		long hash = versionsToAnalyze;
+		for(int row = 0; row < fileMetrics.size(); row++) {
+			hash = 31 * hash + fileMetrics.getVersion(row);
+			for(Metric m : Metric.values()) {
+				hash = 31 * hash + Double.doubleToLongBits(fileMetrics.getValue(m, row));
+			}
+			hash = 31 * hash + (fileMetrics.isBugged(row) ? 1 : 0);
+		}
+		
+		return hash;
+	}
+	
+	public void saveArff(String sourcesPath) {
+		//optional side output, the walk-forward analysis reads the sets from memory
+		File mlPath = new File(sourcesPath);
+		if (!mlPath.exists()){
+			mlPath.mkdirs();
+		}
+		
+		try {
+			for(int k = 1; k <= versionsToAnalyze; k++) {
+				WekaBridge.writeArff(getTraining(k), sourcesPath + "\\" + "Training" + k + WekaTools.ARFF);
+				WekaBridge.writeArff(getTest(k), sourcesPath + "\\" + "Test" + k + WekaTools.ARFF);
+			}
+		
+		} catch (IOException e) {
+			Logger logger = Logger.getLogger(WekaBridge.class.getName());
+			logger.log(Level.SEVERE, "Error generating arffs", e);
+		}
+	}
+	
+	private Instances build(String relation, int fromRow, int toRow) {
+		Instances data = new Instances(relation, attributes, Math.max(toRow - fromRow, 0));
+		data.setClassIndex(classIndex);
+		
+		for(int row = fromRow; row < toRow; row++) {
+			double[] values = new double[attributes.size()];
+			values[0] = fileMetrics.getVersion(row) + 1;
+			for(Metric m : Metric.values()) {
+				values[m.ordinal() + 1] = fileMetrics.getValue(m, row);
+			}
+			values[classIndex] = fileMetrics.isBugged(row) ? 1 : 0;
+			data.add(new DenseInstance(1.0, values));
+		}
+		
+		return data;
+	}
+	
+	private int countBugged(int fromRow, int toRow) {
+		int result = 0;
+		for(int row = fromRow; row < toRow; row++) {
+			if(fileMetrics.isBugged(row)) {
+				result++;
+			}
+		}
+		
+		return result;
+	}
+	
+	private static void writeArff(Instances data, String arffOutput) throws IOException {
+		ArffSaver saver = new ArffSaver();
+		saver.setInstances(data);
+		saver.setFile(new File(arffOutput));
+		saver.writeBatch();
+	}
+	
+}